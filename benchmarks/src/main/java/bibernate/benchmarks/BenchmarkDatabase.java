@@ -0,0 +1,73 @@
+package bibernate.benchmarks;
+
+import org.h2.jdbcx.JdbcDataSource;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.stream.LongStream;
+
+/**
+ * An embedded H2 database created with {@code db/init.sql} and scaled up with generated rows. Persons get ids from 1 to
+ * {@code personCount}, and every generated person gets {@code notesPerPerson} notes.
+ */
+final class BenchmarkDatabase {
+    private static final int INIT_SCRIPT_PERSON_COUNT = 5;
+    private static final int INIT_SCRIPT_NOTE_COUNT = 8;
+    private static final int INSERT_BATCH_SIZE = 1000;
+
+    private BenchmarkDatabase() {
+    }
+
+    static DataSource create(String name, int personCount, int notesPerPerson) throws SQLException {
+        var dataSource = new JdbcDataSource();
+        dataSource.setUrl("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1");
+        dataSource.setUser("sa");
+        try (var connection = dataSource.getConnection(); var statement = connection.createStatement()) {
+            statement.execute("DROP ALL OBJECTS");
+            statement.execute("RUNSCRIPT FROM 'classpath:db/init.sql'");
+            connection.setAutoCommit(false);
+            try (var insertPerson = connection.prepareStatement(
+                    "INSERT INTO persons(id, first_name, last_name) VALUES(?,?,?)");
+                 var insertNote = connection.prepareStatement("INSERT INTO notes(id, body, person_id) VALUES(?,?,?)")) {
+                var noteId = INIT_SCRIPT_NOTE_COUNT;
+                for (long personId = INIT_SCRIPT_PERSON_COUNT + 1; personId <= personCount; personId++) {
+                    insertPerson.setLong(1, personId);
+                    insertPerson.setString(2, "First" + personId);
+                    insertPerson.setString(3, "Last" + personId);
+                    insertPerson.addBatch();
+                    for (int i = 0; i < notesPerPerson; i++) {
+                        insertNote.setLong(1, ++noteId);
+                        insertNote.setString(2, "Note " + noteId + " of person " + personId);
+                        insertNote.setLong(3, personId);
+                        insertNote.addBatch();
+                    }
+                    if (personId % INSERT_BATCH_SIZE == 0) {
+                        insertPerson.executeBatch();
+                        insertNote.executeBatch();
+                    }
+                }
+                insertPerson.executeBatch();
+                insertNote.executeBatch();
+            }
+            connection.commit();
+        }
+        return dataSource;
+    }
+
+    /**
+     * Returns the id of the first note of a generated person.
+     */
+    static long firstNoteIdOf(long personId, int notesPerPerson) {
+        return INIT_SCRIPT_NOTE_COUNT + (personId - INIT_SCRIPT_PERSON_COUNT - 1) * notesPerPerson + 1;
+    }
+
+    /**
+     * Returns ids of {@code count} generated persons starting from the first one.
+     */
+    static List<Long> generatedPersonIds(int count) {
+        return LongStream.rangeClosed(INIT_SCRIPT_PERSON_COUNT + 1, INIT_SCRIPT_PERSON_COUNT + count)
+                .boxed()
+                .toList();
+    }
+}
@@ -0,0 +1,51 @@
+package bibernate.benchmarks;
+
+import bibernate.session.Session;
+import bibernate.session.SessionFactory;
+import bibernate.session.Settings;
+import bibernate.session.impl.SimpleSessionFactory;
+import demo.entity.Person;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A flush of a session whose entities have not changed, so it consists of dirty checking only. A parallel threshold
+ * of 0 keeps the serial path, 1 always compares snapshots in parallel.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Dlog4j2.configurationFile=log4j2-benchmarks.xml")
+public class DirtyCheckBenchmark {
+    @Param({"1000", "10000", "100000"})
+    private int contextSize;
+    @Param({"0", "1"})
+    private int parallelDirtyCheckThreshold;
+
+    private SessionFactory sessionFactory;
+    private Session session;
+
+    @Setup
+    public void setUp() throws Exception {
+        var dataSource = BenchmarkDatabase.create("dirty", contextSize + 5, 0);
+        sessionFactory = new SimpleSessionFactory(dataSource, Settings.builder()
+                .parallelDirtyCheckThreshold(parallelDirtyCheckThreshold)
+                .build());
+        session = sessionFactory.openSession();
+        session.findAll(Person.class, BenchmarkDatabase.generatedPersonIds(contextSize));
+    }
+
+    @TearDown
+    public void tearDown() {
+        session.close();
+        sessionFactory.close();
+    }
+
+    @Benchmark
+    public void flushUnchanged() {
+        session.flush();
+    }
+}
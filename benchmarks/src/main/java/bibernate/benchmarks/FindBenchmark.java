@@ -0,0 +1,74 @@
+package bibernate.benchmarks;
+
+import bibernate.session.Session;
+import bibernate.session.SessionFactory;
+import bibernate.session.Settings;
+import bibernate.session.impl.SimpleSessionFactory;
+import demo.entity.Person;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Loading entities by id. A context miss opens a session with a pooled connection, loads the entity and closes the
+ * session, as a request handler would.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Dlog4j2.configurationFile=log4j2-benchmarks.xml")
+public class FindBenchmark {
+    @Param("10000")
+    private int personCount;
+    @Param({"10", "100"})
+    private int idCount;
+
+    private SessionFactory sessionFactory;
+    private Session session;
+    private List<Long> ids;
+    private long nextId;
+
+    @Setup
+    public void setUp() throws Exception {
+        var dataSource = BenchmarkDatabase.create("find", personCount, 0);
+        sessionFactory = new SimpleSessionFactory(dataSource, Settings.builder().poolEnabled(true).build());
+        session = sessionFactory.openSession();
+        session.find(Person.class, 1L);
+        ids = BenchmarkDatabase.generatedPersonIds(idCount);
+    }
+
+    @TearDown
+    public void tearDown() {
+        session.close();
+        sessionFactory.close();
+    }
+
+    @Benchmark
+    public Person findByIdContextHit() {
+        return session.find(Person.class, 1L);
+    }
+
+    @Benchmark
+    public Person findByIdContextMiss() {
+        nextId = nextId % personCount + 1;
+        var newSession = sessionFactory.openSession();
+        try {
+            return newSession.find(Person.class, nextId);
+        } finally {
+            newSession.close();
+        }
+    }
+
+    @Benchmark
+    public List<Person> findAllByIds() {
+        var newSession = sessionFactory.openSession();
+        try {
+            return newSession.findAll(Person.class, ids);
+        } finally {
+            newSession.close();
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package bibernate.benchmarks;
+
+import bibernate.session.SessionFactory;
+import bibernate.session.Settings;
+import bibernate.session.impl.SimpleSessionFactory;
+import demo.entity.Note;
+import demo.entity.Person;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+/**
+ * A unit of work that loads persons and notes, then updates persons, inserts and deletes notes, and flushes the mixed
+ * action queue. The transaction is rolled back, so every invocation starts with the same data.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Dlog4j2.configurationFile=log4j2-benchmarks.xml")
+public class FlushBenchmark {
+    private static final long FIRST_NEW_NOTE_ID = 10_000_000L;
+    private static final int NOTES_PER_PERSON = 2;
+
+    @Param("10000")
+    private int personCount;
+    @Param({"10", "100"})
+    private int changeCount;
+    @Param({"1", "50"})
+    private int jdbcBatchSize;
+
+    private SessionFactory sessionFactory;
+    private List<Long> personIds;
+    private List<Long> noteIds;
+
+    @Setup
+    public void setUp() throws Exception {
+        var dataSource = BenchmarkDatabase.create("flush", personCount, NOTES_PER_PERSON);
+        sessionFactory = new SimpleSessionFactory(dataSource, Settings.builder()
+                .poolEnabled(true)
+                .jdbcBatchSize(jdbcBatchSize)
+                .build());
+        personIds = BenchmarkDatabase.generatedPersonIds(changeCount);
+        var firstNoteId = BenchmarkDatabase.firstNoteIdOf(personIds.get(personIds.size() - 1) + 1, NOTES_PER_PERSON);
+        noteIds = LongStream.range(firstNoteId, firstNoteId + changeCount).boxed().toList();
+    }
+
+    @TearDown
+    public void tearDown() {
+        sessionFactory.close();
+    }
+
+    @Benchmark
+    public void flushMixedActions() {
+        var session = sessionFactory.openSession();
+        try {
+            session.beginTransaction();
+            var persons = session.findAll(Person.class, personIds);
+            for (int i = 0; i < persons.size(); i++) {
+                var person = persons.get(i);
+                person.setLastName(person.getLastName() + "*");
+                var note = new Note();
+                note.setId(FIRST_NEW_NOTE_ID + i);
+                note.setBody("New note " + i);
+                note.setPerson(person);
+                session.persist(note);
+            }
+            for (var note : session.findAll(Note.class, noteIds)) {
+                session.remove(note);
+            }
+            session.flush();
+            session.rollback();
+        } finally {
+            session.close();
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package bibernate.benchmarks;
+
+import bibernate.session.SessionFactory;
+import bibernate.session.Settings;
+import bibernate.session.impl.SimpleSessionFactory;
+import demo.entity.Person;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Initialization of the {@link bibernate.collection.LazyList}s of loaded persons. With a batch fetch size of 1 every
+ * list is loaded with its own {@code findAllBy} query.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Dlog4j2.configurationFile=log4j2-benchmarks.xml")
+public class LazyListBenchmark {
+    @Param("1000")
+    private int personCount;
+    @Param("10")
+    private int notesPerPerson;
+    @Param("100")
+    private int loadedPersonCount;
+    @Param({"1", "16"})
+    private int batchFetchSize;
+
+    private SessionFactory sessionFactory;
+    private List<Long> ids;
+
+    @Setup
+    public void setUp() throws Exception {
+        var dataSource = BenchmarkDatabase.create("lazy", personCount, notesPerPerson);
+        sessionFactory = new SimpleSessionFactory(dataSource, Settings.builder()
+                .poolEnabled(true)
+                .batchFetchSize(batchFetchSize)
+                .build());
+        ids = BenchmarkDatabase.generatedPersonIds(loadedPersonCount);
+    }
+
+    @TearDown
+    public void tearDown() {
+        sessionFactory.close();
+    }
+
+    @Benchmark
+    public void initializeNotes(Blackhole blackhole) {
+        var session = sessionFactory.openSession();
+        try {
+            for (var person : session.findAll(Person.class, ids)) {
+                blackhole.consume(person.getNotes().size());
+            }
+        } finally {
+            session.close();
+        }
+    }
+}
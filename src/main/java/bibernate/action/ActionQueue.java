@@ -0,0 +1,118 @@
+package bibernate.action;
+
+import bibernate.metamodel.Metamodel;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+
+import java.util.*;
+
+import static java.util.Comparator.comparingInt;
+
+/**
+ * A queue of {@link EntityAction}s that are executed on flush. Actions are executed in order of their
+ * {@link EntityAction#priority()} (INSERT -> UPDATE -> DELETE). Within the same priority, actions are grouped by their
+ * kind, entity type and {@link EntityAction#batchShape()}, so each group is executed with a single statement as a JDBC batch.
+ * <p>
+ * Groups of inserts are ordered so that referenced entity types ({@link bibernate.annotation.ManyToOne}) are inserted
+ * first, and groups of deletes in the opposite order. Within a group, actions keep the order they were added in.
+ */
+@Log4j2
+@RequiredArgsConstructor
+public class ActionQueue {
+    private final Metamodel metamodel;
+    private final List<EntityAction> actions = new ArrayList<>();
+
+    public void add(EntityAction action) {
+        actions.add(action);
+    }
+
+    public void addAll(Collection<? extends EntityAction> actions) {
+        this.actions.addAll(actions);
+    }
+
+    public boolean isEmpty() {
+        return actions.isEmpty();
+    }
+
+    public void clear() {
+        actions.clear();
+    }
+
+    /**
+     * Returns the queued actions in the order they were added
+     */
+    public List<EntityAction> getActions() {
+        return Collections.unmodifiableList(actions);
+    }
+
+    /**
+     * Executes all the queued actions and removes them from the queue. If a group fails, the actions that were not
+     * executed stay in the queue.
+     *
+     * @return the executed actions in the order they were executed
+     */
+    public List<EntityAction> executeActions() {
+        var groups = new LinkedHashMap<GroupKey, List<EntityAction>>();
+        for (var action : actions) {
+            var key = new GroupKey(action.priority(), action.getClass(), action.getEntity().getClass(),
+                    action.batchShape());
+            groups.computeIfAbsent(key, k -> new ArrayList<>()).add(action);
+        }
+        var orderedGroups = new ArrayList<>(groups.entrySet());
+        orderedGroups.sort(comparingInt((Map.Entry<GroupKey, List<EntityAction>> e) -> e.getKey().priority())
+                .thenComparingInt(e -> dependencyOrder(e.getKey(), groups.keySet())));
+        var executedActions = new ArrayList<EntityAction>(actions.size());
+        try {
+            for (var group : orderedGroups) {
+                var groupActions = group.getValue();
+                log.trace("Executing {} {} action(s) for entity {}", groupActions.size(),
+                        group.getKey().actionType().getSimpleName(), group.getKey().entityType().getSimpleName());
+                var entities = groupActions.stream().map(EntityAction::getEntity).toList();
+                groupActions.get(0).executeBatch(entities);
+                executedActions.addAll(groupActions);
+            }
+        } finally {
+            var executed = Collections.newSetFromMap(new IdentityHashMap<EntityAction, Boolean>());
+            executed.addAll(executedActions);
+            actions.removeIf(executed::contains);
+        }
+        return executedActions;
+    }
+
+    private int dependencyOrder(GroupKey key, Set<GroupKey> keys) {
+        var entityTypes = new HashSet<Class<?>>();
+        for (var k : keys) {
+            if (k.priority() == key.priority()) {
+                entityTypes.add(k.entityType());
+            }
+        }
+        if (key.actionType() == EntityInsertAction.class) {
+            return dependencyRank(key.entityType(), entityTypes, new HashSet<>());
+        } else if (key.actionType() == EntityDeleteAction.class) {
+            return -dependencyRank(key.entityType(), entityTypes, new HashSet<>());
+        }
+        return 0;
+    }
+
+    /**
+     * Returns the length of the longest chain of {@link bibernate.annotation.ManyToOne} references from a given type to
+     * other types of the same flush phase.
+     */
+    private int dependencyRank(Class<?> entityType, Set<Class<?>> entityTypes, Set<Class<?>> visitedTypes) {
+        if (!visitedTypes.add(entityType)) {
+            return 0;
+        }
+        var rank = 0;
+        for (var attribute : metamodel.getEntityMetadata(entityType).getToOneAttributes()) {
+            var targetType = attribute.getTargetEntityType();
+            if (targetType != entityType && entityTypes.contains(targetType)) {
+                rank = Math.max(rank, 1 + dependencyRank(targetType, entityTypes, visitedTypes));
+            }
+        }
+        visitedTypes.remove(entityType);
+        return rank;
+    }
+
+    private record GroupKey(int priority, Class<?> actionType, Class<?> entityType, Object batchShape) {
+    }
+}
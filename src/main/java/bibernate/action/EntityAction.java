@@ -1,11 +1,26 @@
 package bibernate.action;
 
+import java.util.List;
+
 /**
  * Represents a write SQL operation. Implementation of this interface are used to perform insert, update and remove
  * operations asynchronously.
  */
 public interface EntityAction {
-    void execute();
-
     int priority();
+
+    Object getEntity();
+
+    /**
+     * Performs the same operation for several entities of the same type at once, so it can be sent as a JDBC batch.
+     */
+    void executeBatch(List<?> entities);
+
+    /**
+     * Actions of the same kind and entity type are executed in one batch only if their shapes are equal, e.g. updates
+     * of the same columns.
+     */
+    default Object batchShape() {
+        return null;
+    }
 }
@@ -1,16 +1,20 @@
 package bibernate.action;
 
 import bibernate.session.impl.EntityPersister;
+import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 
+import java.util.List;
+
 @RequiredArgsConstructor
 public class EntityDeleteAction implements EntityAction {
+    @Getter
     private final Object entity;
     private final EntityPersister persister;
 
     @Override
-    public void execute() {
-        persister.delete(entity);
+    public void executeBatch(List<?> entities) {
+        persister.deleteAll(entities);
     }
 
     @Override
@@ -1,16 +1,20 @@
 package bibernate.action;
 
 import bibernate.session.impl.EntityPersister;
+import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 
+import java.util.List;
+
 @RequiredArgsConstructor
 public class EntityInsertAction implements EntityAction {
+    @Getter
     private final Object entity;
     private final EntityPersister persister;
 
     @Override
-    public void execute() {
-        persister.insert(entity);
+    public void executeBatch(List<?> entities) {
+        persister.insertAll(entities);
     }
 
     @Override
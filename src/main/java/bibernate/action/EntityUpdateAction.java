@@ -1,16 +1,30 @@
 package bibernate.action;
 
+import bibernate.metamodel.EntityAttribute;
 import bibernate.session.impl.EntityPersister;
+import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 
+import java.util.List;
+
 @RequiredArgsConstructor
 public class EntityUpdateAction implements EntityAction {
+    @Getter
     private final Object entity;
+    /**
+     * Attributes that are written by the update
+     */
+    private final List<EntityAttribute> dirtyAttributes;
     private final EntityPersister persister;
 
     @Override
-    public void execute() {
-        persister.update(entity);
+    public void executeBatch(List<?> entities) {
+        persister.updateAll(entities, dirtyAttributes);
+    }
+
+    @Override
+    public Object batchShape() {
+        return dirtyAttributes;
     }
 
     @Override
@@ -0,0 +1,36 @@
+package bibernate.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks an {@link Id} field whose value is generated from a database sequence when an entity is persisted without an
+ * id. Ids are reserved in blocks of {@link #allocationSize()}, so only one sequence call is made per block.
+ */
+@Target(ElementType.FIELD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface GeneratedValue {
+    /**
+     * A sequence name. It is {@code <table>_seq} by default.
+     */
+    String sequence() default "";
+
+    int allocationSize() default 50;
+
+    Optimizer optimizer() default Optimizer.POOLED;
+
+    enum Optimizer {
+        /**
+         * A sequence value is the first id of a block. The sequence must be incremented by the allocation size, so
+         * other applications calling the sequence directly do not clash with the reserved blocks.
+         */
+        POOLED,
+        /**
+         * A sequence value is a block number ("hi"), and ids of the block are {@code (hi - 1) * allocationSize + 1}
+         * to {@code hi * allocationSize}. The sequence is incremented by one.
+         */
+        HILO
+    }
+}
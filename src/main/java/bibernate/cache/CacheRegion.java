@@ -0,0 +1,115 @@
+package bibernate.cache;
+
+import lombok.Getter;
+import lombok.extern.log4j.Log4j2;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A bounded region of the {@link SecondLevelCache} that stores state of entities of a single type by id. The least
+ * recently used entries are evicted when the region is full, and entries expire after the time-to-live.
+ * <p>
+ * Every eviction records an invalidation timestamp taken from the logical clock of the cache. State read from the
+ * database is put only if it was read after the last invalidation, so a row loaded before a concurrent commit is not
+ * cached after the committing session has evicted it.
+ * <p>
+ * The region is guarded by a {@link ReentrantLock} rather than a monitor, so it does not pin virtual threads.
+ */
+@Log4j2
+public class CacheRegion {
+    @Getter
+    private final String name;
+    private final int maxEntries;
+    private final long ttlNanos;
+    private final AtomicLong clock;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Map<Object, Entry> entriesById;
+    private long invalidationTimestamp;
+
+    CacheRegion(String name, int maxEntries, long ttlNanos, AtomicLong clock) {
+        this.name = name;
+        this.maxEntries = maxEntries;
+        this.ttlNanos = ttlNanos;
+        this.clock = clock;
+        this.entriesById = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Object, Entry> eldest) {
+                return size() > CacheRegion.this.maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Returns a copy of the cached state, or {@code null} if there is no entry or it has expired.
+     */
+    public Object[] get(Object id) {
+        lock.lock();
+        try {
+            var entry = entriesById.get(id);
+            if (entry == null) {
+                return null;
+            }
+            if (entry.expiresAt - System.nanoTime() < 0) {
+                log.trace("Cache entry {}#{} has expired", name, id);
+                entriesById.remove(id);
+                return null;
+            }
+            return entry.state.clone();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Caches state that was read from the database after {@code timestamp} had been taken with
+     * {@link SecondLevelCache#currentTimestamp()}. The state is skipped if the region was invalidated since then.
+     */
+    public void put(Object id, Object[] state, long timestamp) {
+        var entry = new Entry(state.clone(), System.nanoTime() + ttlNanos);
+        lock.lock();
+        try {
+            if (timestamp < invalidationTimestamp) {
+                log.trace("Skipping stale state of {}#{}", name, id);
+                return;
+            }
+            entriesById.put(id, entry);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void evict(Object id) {
+        lock.lock();
+        try {
+            invalidationTimestamp = clock.incrementAndGet();
+            entriesById.remove(id);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void evictAll() {
+        lock.lock();
+        try {
+            invalidationTimestamp = clock.incrementAndGet();
+            entriesById.clear();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int size() {
+        lock.lock();
+        try {
+            return entriesById.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private record Entry(Object[] state, long expiresAt) {
+    }
+}
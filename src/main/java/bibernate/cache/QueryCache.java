@@ -0,0 +1,140 @@
+package bibernate.cache;
+
+import bibernate.metamodel.EntityMetadata;
+import bibernate.session.Settings;
+import lombok.Getter;
+import lombok.extern.log4j.Log4j2;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A cache of query results shared by all the sessions of a {@link bibernate.session.SessionFactory}. It caches
+ * {@code SELECT ... WHERE column = ?} queries by entity type, column and value, and stores only ids of the selected
+ * entities, which are resolved through the persistence context and the {@link SecondLevelCache}.
+ * <p>
+ * Entries are invalidated with per-table update timestamps taken from a logical clock. A query takes a timestamp
+ * before it is executed, and its result is valid only while no write to the table has been recorded after that, so a
+ * result read concurrently with a write is never served. The cache is bounded by the number of entries and the total
+ * number of stored ids, and the least recently used entries are evicted first.
+ */
+@Log4j2
+public class QueryCache {
+    @Getter
+    private final boolean enabled;
+    private final int maxEntries;
+    private final long maxIds;
+    private final AtomicLong clock = new AtomicLong();
+    private final Map<String, Long> updateTimestampsByTable = new ConcurrentHashMap<>();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final LinkedHashMap<QueryKey, Entry> entriesByKey = new LinkedHashMap<>(16, 0.75f, true);
+    private long storedIdCount;
+
+    public QueryCache(Settings settings) {
+        this.enabled = settings.isQueryCacheEnabled();
+        this.maxEntries = settings.getQueryCacheMaxEntries();
+        this.maxIds = settings.getQueryCacheMaxIds();
+    }
+
+    /**
+     * Returns a timestamp that must be taken before a query is executed and passed to
+     * {@link #put(EntityMetadata, String, Object, List, long)} with its result.
+     */
+    public long nextTimestamp() {
+        return clock.incrementAndGet();
+    }
+
+    /**
+     * Returns ids of the entities selected by a query, or {@code null} if there is no valid result.
+     */
+    public List<Object> get(EntityMetadata<?> metadata, String columnName, Object value) {
+        var key = new QueryKey(metadata.getEntityType(), columnName, value);
+        lock.lock();
+        try {
+            var entry = entriesByKey.get(key);
+            if (entry == null) {
+                return null;
+            }
+            if (entry.timestamp <= updateTimestampsByTable.getOrDefault(metadata.getTableName(), 0L)) {
+                log.trace("Query cache entry {} is stale", key);
+                remove(key);
+                return null;
+            }
+            return entry.ids;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void put(EntityMetadata<?> metadata, String columnName, Object value, List<Object> ids, long timestamp) {
+        if (ids.size() > maxIds || timestamp <= updateTimestampsByTable.getOrDefault(metadata.getTableName(), 0L)) {
+            return;
+        }
+        var key = new QueryKey(metadata.getEntityType(), columnName, value);
+        var entry = new Entry(List.copyOf(ids), timestamp);
+        lock.lock();
+        try {
+            remove(key);
+            entriesByKey.put(key, entry);
+            storedIdCount += entry.ids.size();
+            evictEldestEntries();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Records a write to a table, so all the results that were read from it before become stale.
+     */
+    public void invalidate(String tableName) {
+        if (enabled) {
+            log.trace("Invalidating query results of table {}", tableName);
+            updateTimestampsByTable.put(tableName, clock.incrementAndGet());
+        }
+    }
+
+    public void clear() {
+        lock.lock();
+        try {
+            entriesByKey.clear();
+            storedIdCount = 0;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int size() {
+        lock.lock();
+        try {
+            return entriesByKey.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void remove(QueryKey key) {
+        var entry = entriesByKey.remove(key);
+        if (entry != null) {
+            storedIdCount -= entry.ids.size();
+        }
+    }
+
+    private void evictEldestEntries() {
+        Iterator<Entry> iterator = entriesByKey.values().iterator();
+        while ((entriesByKey.size() > maxEntries || storedIdCount > maxIds) && iterator.hasNext()) {
+            storedIdCount -= iterator.next().ids.size();
+            iterator.remove();
+        }
+    }
+
+    private record QueryKey(Class<?> entityType, String columnName, Object value) {
+    }
+
+    private record Entry(List<Object> ids, long timestamp) {
+    }
+}
@@ -0,0 +1,76 @@
+package bibernate.cache;
+
+import bibernate.metamodel.EntityMetadata;
+import bibernate.session.Settings;
+import lombok.Getter;
+import lombok.extern.log4j.Log4j2;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A cache of entity state shared by all the sessions of a {@link bibernate.session.SessionFactory}. It stores
+ * disassembled state (column values in the order of {@link EntityMetadata#getColumnAttributes()}) rather than entity
+ * instances, so every session assembles its own objects. There is a separate {@link CacheRegion} per entity type
+ * marked with {@link bibernate.annotation.Cacheable}.
+ */
+@Log4j2
+public class SecondLevelCache {
+    @Getter
+    private final boolean enabled;
+    private final int maxEntriesPerRegion;
+    private final long ttlNanos;
+    private final AtomicLong clock = new AtomicLong();
+    private final Map<Class<?>, CacheRegion> regionsByType = new ConcurrentHashMap<>();
+
+    public SecondLevelCache(Settings settings) {
+        this.enabled = settings.isSecondLevelCacheEnabled();
+        this.maxEntriesPerRegion = settings.getSecondLevelCacheMaxEntries();
+        this.ttlNanos = settings.getSecondLevelCacheTtl().toNanos();
+    }
+
+    /**
+     * Returns a region for the entity type, or {@code null} if the cache is disabled or the entity is not cacheable.
+     */
+    public CacheRegion getRegion(EntityMetadata<?> metadata) {
+        if (!enabled || !metadata.isCacheable()) {
+            return null;
+        }
+        return regionsByType.computeIfAbsent(metadata.getEntityType(), type -> {
+            log.debug("Creating second-level cache region for entity {}", type.getSimpleName());
+            return new CacheRegion(type.getName(), maxEntriesPerRegion, ttlNanos, clock);
+        });
+    }
+
+    /**
+     * Returns a timestamp that must be taken before a query is executed and passed to
+     * {@link CacheRegion#put(Object, Object[], long)} with the states it read.
+     */
+    public long currentTimestamp() {
+        return clock.get();
+    }
+
+    public void evict(EntityMetadata<?> metadata, Object id) {
+        var region = getRegion(metadata);
+        if (region != null) {
+            log.trace("Evicting {}#{} from the second-level cache", metadata.getEntityType().getSimpleName(), id);
+            region.evict(id);
+        }
+    }
+
+    /**
+     * Evicts all the cached state of an entity type.
+     */
+    public void evictAll(EntityMetadata<?> metadata) {
+        var region = getRegion(metadata);
+        if (region != null) {
+            log.trace("Evicting all {} from the second-level cache", metadata.getEntityType().getSimpleName());
+            region.evictAll();
+        }
+    }
+
+    public void evictAll() {
+        regionsByType.values().forEach(CacheRegion::evictAll);
+    }
+}
@@ -20,6 +20,20 @@ public class LazyList<T> implements List<T> {
         this.collectionSupplier = collectionSupplier;
     }
 
+    /**
+     * Initializes the list with already loaded elements. It is used when several lists are loaded with one query.
+     */
+    public void initialize(List<T> elements) {
+        if (internalList == null) {
+            log.trace("Initializing lazy list with {} preloaded element(s)", elements.size());
+            internalList = elements;
+        }
+    }
+
+    public boolean isInitialized() {
+        return internalList != null;
+    }
+
     private List<T> getInternalList() {
         if (internalList == null) {
             log.trace("Initializing lazy list");
@@ -0,0 +1,112 @@
+package bibernate.id;
+
+import bibernate.annotation.GeneratedValue;
+import lombok.Getter;
+import lombok.SneakyThrows;
+import lombok.extern.log4j.Log4j2;
+
+import java.sql.Connection;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+import static bibernate.util.SqlUtil.NEXT_VALUE_FOR_SEQUENCE_TEMPLATE;
+import static bibernate.util.SqlUtil.POSTGRES_NEXT_VALUE_FOR_SEQUENCE_TEMPLATE;
+
+/**
+ * Generates ids from a database sequence using a {@link GeneratedValue.Optimizer}. A generator is shared by all the
+ * sessions of a session factory and is lock-free: ids are taken from the current block with an atomic increment, and
+ * a new block is reserved with a single sequence call only when the current one is exhausted.
+ * <p>
+ * When several threads exhaust a block at the same time, each of them reserves a block, and the blocks that are not
+ * installed as current are kept as spare ones for the next exhaustion, so no reserved ids are lost.
+ */
+@Log4j2
+public class SequenceIdGenerator {
+    @Getter
+    private final String sequenceName;
+    private final int allocationSize;
+    private final GeneratedValue.Optimizer optimizer;
+    private final Class<?> idType;
+    private final AtomicReference<IdBlock> currentBlock = new AtomicReference<>(IdBlock.EXHAUSTED);
+    private final Queue<IdBlock> spareBlocks = new ConcurrentLinkedQueue<>();
+    private volatile String nextValueSql;
+
+    public SequenceIdGenerator(String sequenceName, int allocationSize, GeneratedValue.Optimizer optimizer,
+                               Class<?> idType) {
+        if (allocationSize < 1) {
+            throw new IllegalArgumentException("Allocation size of sequence " + sequenceName + " must be positive");
+        }
+        if (idType != Long.class && idType != long.class && idType != Integer.class && idType != int.class) {
+            throw new IllegalArgumentException("Generated id must be a long or an int, but it is " + idType.getName());
+        }
+        this.sequenceName = sequenceName;
+        this.allocationSize = allocationSize;
+        this.optimizer = optimizer;
+        this.idType = idType;
+    }
+
+    /**
+     * Returns the next id. A connection is requested only when a new block of ids must be reserved.
+     */
+    public Object generate(Supplier<Connection> connectionSupplier) {
+        var id = nextId(connectionSupplier);
+        if (idType == Long.class || idType == long.class) {
+            return id;
+        }
+        return Math.toIntExact(id);
+    }
+
+    private long nextId(Supplier<Connection> connectionSupplier) {
+        while (true) {
+            var block = currentBlock.get();
+            var id = block.next.getAndIncrement();
+            if (id < block.end) {
+                return id;
+            }
+            var newBlock = spareBlocks.poll();
+            if (newBlock == null) {
+                newBlock = reserveBlock(connectionSupplier.get());
+            }
+            if (!currentBlock.compareAndSet(block, newBlock)) {
+                spareBlocks.offer(newBlock);
+            }
+        }
+    }
+
+    @SneakyThrows
+    private IdBlock reserveBlock(Connection connection) {
+        var sql = nextValueSql;
+        if (sql == null) {
+            var template = connection.getMetaData().getDatabaseProductName().contains("PostgreSQL")
+                    ? POSTGRES_NEXT_VALUE_FOR_SEQUENCE_TEMPLATE : NEXT_VALUE_FOR_SEQUENCE_TEMPLATE;
+            sql = nextValueSql = String.format(template, sequenceName);
+        }
+        long value;
+        try (var statement = connection.prepareStatement(sql);
+             var resultSet = statement.executeQuery()) {
+            resultSet.next();
+            value = resultSet.getLong(1);
+        }
+        var start = optimizer == GeneratedValue.Optimizer.HILO ? (value - 1) * allocationSize + 1 : value;
+        log.debug("Reserved ids [{}, {}) from sequence {}", start, start + allocationSize, sequenceName);
+        return new IdBlock(start, start + allocationSize);
+    }
+
+    /**
+     * A range of reserved ids from {@code next} inclusive to {@code end} exclusive
+     */
+    private static class IdBlock {
+        private static final IdBlock EXHAUSTED = new IdBlock(0, 0);
+
+        private final AtomicLong next;
+        private final long end;
+
+        private IdBlock(long start, long end) {
+            this.next = new AtomicLong(start);
+            this.end = end;
+        }
+    }
+}
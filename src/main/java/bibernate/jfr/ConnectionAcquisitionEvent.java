@@ -0,0 +1,18 @@
+package bibernate.jfr;
+
+import jdk.jfr.*;
+
+/**
+ * A JFR event of a session acquiring a connection from the data source. It includes the time spent waiting for a
+ * pooled connection.
+ */
+@Name("bibernate.ConnectionAcquisition")
+@Label("Connection Acquisition")
+@Category({"Bibernate", "JDBC"})
+@Description("Acquisition of a connection by a session")
+@Enabled(false)
+@StackTrace(false)
+public class ConnectionAcquisitionEvent extends Event {
+    @Label("Data Source Type")
+    public Class<?> dataSourceType;
+}
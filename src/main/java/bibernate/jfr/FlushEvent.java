@@ -0,0 +1,30 @@
+package bibernate.jfr;
+
+import jdk.jfr.*;
+
+/**
+ * A JFR event of a session flush with the durations of its phases: dirty checking of the managed entities and
+ * execution of the queued actions.
+ */
+@Name("bibernate.Flush")
+@Label("Session Flush")
+@Category("Bibernate")
+@Description("Flush of a session")
+@Enabled(false)
+@StackTrace(false)
+public class FlushEvent extends Event {
+    @Label("Dirty Check Duration")
+    @Timespan(Timespan.NANOSECONDS)
+    public long dirtyCheckDuration;
+
+    @Label("Action Execution Duration")
+    @Timespan(Timespan.NANOSECONDS)
+    public long actionExecutionDuration;
+
+    @Label("Dirty Entity Count")
+    public int dirtyEntityCount;
+
+    @Label("Action Count")
+    @Description("Number of executed insert, update and delete actions")
+    public int actionCount;
+}
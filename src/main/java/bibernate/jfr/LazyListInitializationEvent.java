@@ -0,0 +1,32 @@
+package bibernate.jfr;
+
+import jdk.jfr.*;
+
+/**
+ * A JFR event of a lazy collection loaded on the first access or by a join of a fetch plan. When other collections of
+ * the same role are loaded with the same query, they are counted in {@link #batchedCollectionCount}.
+ */
+@Name("bibernate.LazyListInitialization")
+@Label("Lazy List Initialization")
+@Category("Bibernate")
+@Description("Loading of a lazy collection")
+@Enabled(false)
+@StackTrace(false)
+public class LazyListInitializationEvent extends Event {
+    @Label("Owner Type")
+    public Class<?> ownerType;
+
+    @Label("Owner Id")
+    public String ownerId;
+
+    @Label("Role")
+    @Description("Name of the collection attribute")
+    public String role;
+
+    @Label("Size")
+    public int size;
+
+    @Label("Batched Collection Count")
+    @Description("Number of other collections initialized by the same query")
+    public int batchedCollectionCount;
+}
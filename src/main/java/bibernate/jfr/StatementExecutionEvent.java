@@ -0,0 +1,57 @@
+package bibernate.jfr;
+
+import jdk.jfr.*;
+
+/**
+ * A JFR event of a JDBC statement executed by a session. The SQL is recorded as it is prepared, so it contains
+ * {@code ?} placeholders instead of the bound values. A batch is recorded as a single event.
+ */
+@Name("bibernate.StatementExecution")
+@Label("Statement Execution")
+@Category({"Bibernate", "JDBC"})
+@Description("Execution of a JDBC statement")
+@Enabled(false)
+@StackTrace(false)
+public class StatementExecutionEvent extends Event {
+    @Label("SQL")
+    public String sql;
+
+    @Label("Kind")
+    public String kind;
+
+    @Label("Entity Type")
+    public Class<?> entityType;
+
+    @Label("Bind Count")
+    @Description("Number of bound parameters of a single statement")
+    public int bindCount;
+
+    @Label("Batch Size")
+    @Description("Number of statements sent as one JDBC batch, 1 for a regular execution")
+    public int batchSize;
+
+    @Label("Row Count")
+    @Description("Number of rows read or affected")
+    public long rowCount;
+
+    /**
+     * Counts {@code ?} placeholders of the SQL that are not inside string literals or quoted identifiers.
+     */
+    public static int countParameters(String sql) {
+        var count = 0;
+        var quote = (char) 0;
+        for (int i = 0; i < sql.length(); i++) {
+            var c = sql.charAt(i);
+            if (quote != 0) {
+                if (c == quote) {
+                    quote = 0;
+                }
+            } else if (c == '\'' || c == '"') {
+                quote = c;
+            } else if (c == '?') {
+                count++;
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,19 @@
+package bibernate.metamodel;
+
+/**
+ * Describes how an entity attribute is mapped to the table.
+ */
+public enum AttributeKind {
+    /**
+     * A simple value stored in its own column (including the id)
+     */
+    BASIC,
+    /**
+     * A {@link bibernate.annotation.ManyToOne} reference stored as a foreign key column
+     */
+    TO_ONE,
+    /**
+     * A {@link bibernate.annotation.OneToMany} collection that is not stored in the entity table
+     */
+    TO_MANY
+}
@@ -0,0 +1,80 @@
+package bibernate.metamodel;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * Reads a single column value from a {@link ResultSet} by its position using a getter that matches the Java type of
+ * the attribute.
+ */
+@FunctionalInterface
+public interface ColumnReader {
+    Object read(ResultSet resultSet, int position) throws SQLException;
+
+    ColumnReader OBJECT = ResultSet::getObject;
+    ColumnReader STRING = ResultSet::getString;
+    ColumnReader BIG_DECIMAL = ResultSet::getBigDecimal;
+    ColumnReader LONG = (rs, i) -> {
+        var value = rs.getLong(i);
+        return rs.wasNull() ? null : value;
+    };
+    ColumnReader INTEGER = (rs, i) -> {
+        var value = rs.getInt(i);
+        return rs.wasNull() ? null : value;
+    };
+    ColumnReader SHORT = (rs, i) -> {
+        var value = rs.getShort(i);
+        return rs.wasNull() ? null : value;
+    };
+    ColumnReader BYTE = (rs, i) -> {
+        var value = rs.getByte(i);
+        return rs.wasNull() ? null : value;
+    };
+    ColumnReader DOUBLE = (rs, i) -> {
+        var value = rs.getDouble(i);
+        return rs.wasNull() ? null : value;
+    };
+    ColumnReader FLOAT = (rs, i) -> {
+        var value = rs.getFloat(i);
+        return rs.wasNull() ? null : value;
+    };
+    ColumnReader BOOLEAN = (rs, i) -> {
+        var value = rs.getBoolean(i);
+        return rs.wasNull() ? null : value;
+    };
+    ColumnReader LOCAL_DATE = (rs, i) -> rs.getObject(i, LocalDate.class);
+    ColumnReader LOCAL_DATE_TIME = (rs, i) -> rs.getObject(i, LocalDateTime.class);
+
+    Map<Class<?>, ColumnReader> READERS_BY_TYPE = Map.ofEntries(
+            Map.entry(String.class, STRING),
+            Map.entry(BigDecimal.class, BIG_DECIMAL),
+            Map.entry(Long.class, LONG),
+            Map.entry(long.class, LONG),
+            Map.entry(Integer.class, INTEGER),
+            Map.entry(int.class, INTEGER),
+            Map.entry(Short.class, SHORT),
+            Map.entry(short.class, SHORT),
+            Map.entry(Byte.class, BYTE),
+            Map.entry(byte.class, BYTE),
+            Map.entry(Double.class, DOUBLE),
+            Map.entry(double.class, DOUBLE),
+            Map.entry(Float.class, FLOAT),
+            Map.entry(float.class, FLOAT),
+            Map.entry(Boolean.class, BOOLEAN),
+            Map.entry(boolean.class, BOOLEAN),
+            Map.entry(LocalDate.class, LOCAL_DATE),
+            Map.entry(LocalDateTime.class, LOCAL_DATE_TIME)
+    );
+
+    /**
+     * Returns a typed reader for a given Java type, or a generic {@link ResultSet#getObject(int)} reader if the type
+     * has no dedicated getter.
+     */
+    static ColumnReader forType(Class<?> javaType) {
+        return READERS_BY_TYPE.getOrDefault(javaType, OBJECT);
+    }
+}
@@ -0,0 +1,125 @@
+package bibernate.metamodel;
+
+import bibernate.metamodel.access.PropertyAccessStrategy;
+import bibernate.metamodel.access.PropertyAccessor;
+import lombok.AccessLevel;
+import lombok.Getter;
+
+import java.lang.reflect.Field;
+
+import static bibernate.util.EntityUtil.*;
+
+/**
+ * An immutable descriptor of a single entity field. All the annotations are resolved once when the attribute is
+ * created, so the hot paths never go back to reflection to find out how a field is mapped.
+ */
+@Getter
+public class EntityAttribute {
+    private final Field field;
+    private final String name;
+    private final Class<?> javaType;
+    private final AttributeKind kind;
+    private final boolean id;
+    /**
+     * A Java type of the column value. For {@link AttributeKind#TO_ONE} attributes it is a type of the related id
+     */
+    private final Class<?> columnJavaType;
+    /**
+     * A column name for {@link AttributeKind#BASIC} and {@link AttributeKind#TO_ONE} attributes
+     */
+    private final String columnName;
+    /**
+     * A related entity type for {@link AttributeKind#TO_ONE} and {@link AttributeKind#TO_MANY} attributes
+     */
+    private final Class<?> targetEntityType;
+    /**
+     * An id accessor of the related entity for {@link AttributeKind#TO_ONE} attributes
+     */
+    @Getter(AccessLevel.NONE)
+    private final PropertyAccessor targetIdAccessor;
+    /**
+     * A join column on the opposite side for {@link AttributeKind#TO_MANY} attributes
+     */
+    private final String mappedByColumnName;
+    /**
+     * An attribute on the opposite side for {@link AttributeKind#TO_MANY} attributes
+     */
+    private final String mappedByAttributeName;
+    @Getter(AccessLevel.NONE)
+    private final PropertyAccessor accessor;
+
+    EntityAttribute(Class<?> entityType, Field field, PropertyAccessStrategy accessStrategy) {
+        this.field = field;
+        this.accessor = accessStrategy.createAccessor(field);
+        this.name = field.getName();
+        this.javaType = field.getType();
+        this.id = isIdField(field);
+        if (isEntityCollectionField(field)) {
+            this.kind = AttributeKind.TO_MANY;
+            this.columnName = null;
+            this.columnJavaType = null;
+            this.targetEntityType = getEntityCollectionElementType(field);
+            this.targetIdAccessor = null;
+            var mappedByField = getRelatedEntityField(entityType, targetEntityType);
+            this.mappedByColumnName = resolveColumnName(mappedByField);
+            this.mappedByAttributeName = mappedByField.getName();
+        } else if (isEntityField(field)) {
+            this.kind = AttributeKind.TO_ONE;
+            this.columnName = resolveColumnName(field);
+            this.targetEntityType = field.getType();
+            var targetIdField = getIdField(targetEntityType);
+            this.columnJavaType = targetIdField.getType();
+            this.targetIdAccessor = accessStrategy.createAccessor(targetIdField);
+            this.mappedByColumnName = null;
+            this.mappedByAttributeName = null;
+        } else {
+            this.kind = AttributeKind.BASIC;
+            this.columnName = resolveColumnName(field);
+            this.columnJavaType = field.getType();
+            this.targetEntityType = null;
+            this.targetIdAccessor = null;
+            this.mappedByColumnName = null;
+            this.mappedByAttributeName = null;
+        }
+    }
+
+    public boolean isColumn() {
+        return kind != AttributeKind.TO_MANY;
+    }
+
+    public Object getValue(Object entity) {
+        return accessor.get(entity);
+    }
+
+    public void setValue(Object entity, Object value) {
+        accessor.set(entity, value);
+    }
+
+    /**
+     * Returns a value that is stored in the column. For {@link AttributeKind#TO_ONE} attributes it is an id of the
+     * related entity.
+     */
+    public Object getColumnValue(Object entity) {
+        var value = accessor.get(entity);
+        if (kind == AttributeKind.TO_ONE && value != null) {
+            return targetIdAccessor.get(value);
+        }
+        return value;
+    }
+
+    /**
+     * Converts a value of this attribute to a column value. A {@link AttributeKind#TO_ONE} attribute accepts either a
+     * related entity or its id.
+     */
+    public Object toColumnValue(Object value) {
+        if (kind == AttributeKind.TO_ONE && targetEntityType.isInstance(value)) {
+            return targetIdAccessor.get(value);
+        }
+        return value;
+    }
+
+    @Override
+    public String toString() {
+        return field.getDeclaringClass().getSimpleName() + "." + name;
+    }
+}
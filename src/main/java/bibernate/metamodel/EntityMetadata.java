@@ -0,0 +1,269 @@
+package bibernate.metamodel;
+
+import bibernate.annotation.Cacheable;
+import bibernate.annotation.GeneratedValue;
+import bibernate.id.SequenceIdGenerator;
+import bibernate.metamodel.access.PropertyAccessStrategy;
+import bibernate.util.EntityKey;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.SneakyThrows;
+import lombok.extern.log4j.Log4j2;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+import static bibernate.util.EntityUtil.isPersistentField;
+import static bibernate.util.EntityUtil.resolveTableName;
+import static bibernate.util.SqlUtil.*;
+
+/**
+ * An immutable mapping model of an entity class. It is built once per entity type by {@link Metamodel} and holds
+ * everything that used to be resolved via reflection on every call: the table name, the id attribute, ordered column
+ * attributes, relations and the SQL statements.
+ * <p>
+ * The order of {@link #getColumnAttributes()} defines the order of insert params and entity snapshot values.
+ *
+ * @param <T> entity type
+ */
+@Log4j2
+@Getter
+public class EntityMetadata<T> {
+    /**
+     * Max number of cached {@code UPDATE} statements for distinct sets of changed columns
+     */
+    private static final int MAX_CACHED_UPDATE_SHAPES = 64;
+
+    private final Class<T> entityType;
+    private final String tableName;
+    private final boolean cacheable;
+    @Getter(AccessLevel.NONE)
+    private final MethodHandle instantiator;
+    private final EntityAttribute idAttribute;
+    /**
+     * A generator of ids for an id marked with {@link GeneratedValue}, or {@code null} if ids are assigned by hand
+     */
+    private final SequenceIdGenerator idGenerator;
+    /**
+     * A position of the id in {@link #getColumnAttributes()}, entity snapshots and hydrated state
+     */
+    private final int idIndex;
+    private final List<EntityAttribute> attributes;
+    private final List<EntityAttribute> columnAttributes;
+    private final List<EntityAttribute> updatableAttributes;
+    private final List<EntityAttribute> toOneAttributes;
+    private final List<EntityAttribute> toManyAttributes;
+
+    private final String insertSql;
+    private final String updateSql;
+    private final String deleteSql;
+    private final String selectByIdSql;
+    @Getter(AccessLevel.NONE)
+    private final Map<String, EntityAttribute> attributesByName;
+    @Getter(AccessLevel.NONE)
+    private final Map<String, String> selectSqlByColumn;
+    @Getter(AccessLevel.NONE)
+    private final Map<String, String> selectByColumnValuesSql = new ConcurrentHashMap<>();
+    @Getter(AccessLevel.NONE)
+    private final Map<List<EntityAttribute>, String> updateSqlByAttributes = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<List<EntityAttribute>, String> eldest) {
+            return size() > MAX_CACHED_UPDATE_SHAPES;
+        }
+    };
+    @Getter(AccessLevel.NONE)
+    private final ReentrantLock updateSqlLock = new ReentrantLock();
+    @Getter(AccessLevel.NONE)
+    private final Map<String, RowHydrator<T>> rowHydratorsBySql = new ConcurrentHashMap<>();
+
+    @SneakyThrows
+    EntityMetadata(Class<T> entityType, PropertyAccessStrategy accessStrategy) {
+        log.trace("Building metadata for entity {}", entityType.getSimpleName());
+        this.entityType = entityType;
+        this.tableName = resolveTableName(entityType);
+        this.cacheable = entityType.isAnnotationPresent(Cacheable.class);
+        this.instantiator = MethodHandles.publicLookup()
+                .findConstructor(entityType, MethodType.methodType(void.class))
+                .asType(MethodType.methodType(Object.class));
+
+        var attributes = new ArrayList<EntityAttribute>();
+        EntityAttribute idAttribute = null;
+        for (var field : entityType.getDeclaredFields()) {
+            if (!isPersistentField(field)) {
+                continue;
+            }
+            var attribute = new EntityAttribute(entityType, field, accessStrategy);
+            attributes.add(attribute);
+            if (attribute.isId()) {
+                idAttribute = attribute;
+            }
+        }
+        if (idAttribute == null) {
+            throw new RuntimeException("Cannot find a field marked with @Id in class " + entityType.getSimpleName());
+        }
+        this.idAttribute = idAttribute;
+        this.idGenerator = createIdGenerator(idAttribute, tableName);
+        this.attributes = List.copyOf(attributes);
+        this.columnAttributes = attributes.stream().filter(EntityAttribute::isColumn).toList();
+        this.idIndex = columnAttributes.indexOf(idAttribute);
+        this.updatableAttributes = columnAttributes.stream().filter(a -> !a.isId()).toList();
+        this.toOneAttributes = attributes.stream().filter(a -> a.getKind() == AttributeKind.TO_ONE).toList();
+        this.toManyAttributes = attributes.stream().filter(a -> a.getKind() == AttributeKind.TO_MANY).toList();
+
+        var attributesByName = new HashMap<String, EntityAttribute>();
+        var selectSqlByColumn = new HashMap<String, String>();
+        for (var attribute : attributes) {
+            attributesByName.put(attribute.getName(), attribute);
+            if (attribute.isColumn()) {
+                selectSqlByColumn.put(attribute.getColumnName(),
+                        String.format(SELECT_FROM_TABLE_BY_COLUMN_QUERY_TEMPLATE, tableName, attribute.getColumnName()));
+            }
+        }
+        this.attributesByName = Map.copyOf(attributesByName);
+        this.selectSqlByColumn = Map.copyOf(selectSqlByColumn);
+
+        var idColumnName = idAttribute.getColumnName();
+        this.insertSql = String.format(INSERT_INTO_TABLE_VALUES_TEMPLATE,
+                tableName, commaSeparatedInsertableColumns(this), commaSeparatedInsertableParams(this));
+        this.updateSql = String.format(UPDATE_TABLE_SET_VALUES_BY_COLUMN_TEMPLATE,
+                tableName, commaSeparatedUpdatableColumnSetters(this), idColumnName + " = ?");
+        this.deleteSql = String.format(DELETE_FROM_TABLE_BY_COLUMN, tableName, idColumnName);
+        this.selectByIdSql = selectSqlByColumn.get(idColumnName);
+    }
+
+    private static SequenceIdGenerator createIdGenerator(EntityAttribute idAttribute, String tableName) {
+        var generatedValue = idAttribute.getField().getAnnotation(GeneratedValue.class);
+        if (generatedValue == null) {
+            return null;
+        }
+        var sequenceName = generatedValue.sequence().isEmpty() ? tableName + "_seq" : generatedValue.sequence();
+        return new SequenceIdGenerator(sequenceName, generatedValue.allocationSize(), generatedValue.optimizer(),
+                idAttribute.getJavaType());
+    }
+
+    public EntityAttribute getAttribute(String name) {
+        var attribute = attributesByName.get(name);
+        if (attribute == null) {
+            throw new IllegalArgumentException("Entity " + entityType.getSimpleName() + " has no attribute " + name);
+        }
+        return attribute;
+    }
+
+    public String getSelectByColumnSql(String columnName) {
+        var sql = selectSqlByColumn.get(columnName);
+        return sql != null ? sql : String.format(SELECT_FROM_TABLE_BY_COLUMN_QUERY_TEMPLATE, tableName, columnName);
+    }
+
+    /**
+     * Returns a {@link RowHydrator} for a given query. The hydrator is compiled from the result set metadata on the
+     * first call and reused for all the subsequent executions of the same query. Hydrators are kept as long as the
+     * metadata, so it must only be called for queries built by the metadata. Use
+     * {@link #createRowHydrator(ResultSet)} for arbitrary queries.
+     */
+    @SneakyThrows
+    public RowHydrator<T> getRowHydrator(String sql, ResultSet resultSet) {
+        var hydrator = rowHydratorsBySql.get(sql);
+        if (hydrator == null) {
+            var resultSetMetaData = resultSet.getMetaData();
+            hydrator = rowHydratorsBySql.computeIfAbsent(sql, k -> RowHydrator.create(this, resultSetMetaData));
+        }
+        return hydrator;
+    }
+
+    /**
+     * Creates a {@link RowHydrator} for a single result set without caching it
+     */
+    @SneakyThrows
+    public RowHydrator<T> createRowHydrator(ResultSet resultSet) {
+        return RowHydrator.create(this, resultSet.getMetaData());
+    }
+
+    /**
+     * Returns {@code SELECT ... WHERE column IN (?, ...)} with a given number of params.
+     */
+    public String getSelectByColumnValuesSql(String columnName, int valueCount) {
+        return selectByColumnValuesSql.computeIfAbsent(columnName + "#" + valueCount, key -> String.format(
+                SELECT_FROM_TABLE_WHERE_COLUMN_IN_QUERY_TEMPLATE, tableName, columnName, commaSeparatedParams(valueCount)));
+    }
+
+    /**
+     * Returns an {@code UPDATE} statement that sets only given attributes. Statements are kept in an LRU cache of
+     * {@value #MAX_CACHED_UPDATE_SHAPES} distinct sets of attributes, so the shapes a workload keeps flushing stay
+     * cached while rare ones are evicted.
+     */
+    public String getUpdateSql(List<EntityAttribute> attributes) {
+        if (attributes.equals(updatableAttributes)) {
+            return updateSql;
+        }
+        updateSqlLock.lock();
+        try {
+            var sql = updateSqlByAttributes.get(attributes);
+            if (sql != null) {
+                return sql;
+            }
+        } finally {
+            updateSqlLock.unlock();
+        }
+        var sql = String.format(UPDATE_TABLE_SET_VALUES_BY_COLUMN_TEMPLATE,
+                tableName, commaSeparatedColumnSetters(attributes), idAttribute.getColumnName() + " = ?");
+        updateSqlLock.lock();
+        try {
+            updateSqlByAttributes.put(List.copyOf(attributes), sql);
+        } finally {
+            updateSqlLock.unlock();
+        }
+        return sql;
+    }
+
+    @SneakyThrows
+    public T newInstance() {
+        return entityType.cast(instantiator.invokeExact());
+    }
+
+    public Object getId(Object entity) {
+        return idAttribute.getValue(entity);
+    }
+
+    /**
+     * Assigns a generated id to an entity that has no id yet: it is {@code null}, or zero for a primitive type. It does
+     * nothing if the id is not marked with {@link GeneratedValue}.
+     */
+    public void generateIdIfAbsent(Object entity, Supplier<Connection> connectionSupplier) {
+        if (idGenerator == null) {
+            return;
+        }
+        var id = getId(entity);
+        if (id == null || idAttribute.getJavaType().isPrimitive() && ((Number) id).longValue() == 0) {
+            var generatedId = idGenerator.generate(connectionSupplier);
+            log.trace("Assigning generated id {} to entity {}", generatedId, entityType.getSimpleName());
+            idAttribute.setValue(entity, generatedId);
+        }
+    }
+
+    public EntityKey<T> keyOf(Object entity) {
+        return new EntityKey<>(entityType, getId(entity));
+    }
+
+    /**
+     * Creates a snapshot of the entity state. It contains column values in the order of {@link #getColumnAttributes()}.
+     */
+    public Object[] snapshot(Object entity) {
+        var snapshot = new Object[columnAttributes.size()];
+        for (int i = 0; i < snapshot.length; i++) {
+            snapshot[i] = columnAttributes.get(i).getColumnValue(entity);
+        }
+        return snapshot;
+    }
+
+    @Override
+    public String toString() {
+        return "EntityMetadata(" + entityType.getSimpleName() + " -> " + tableName + ")";
+    }
+}
@@ -0,0 +1,65 @@
+package bibernate.metamodel;
+
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static bibernate.util.SqlUtil.*;
+
+/**
+ * A query that selects an entity by id together with some of its associations using {@code LEFT JOIN}s. Columns of
+ * every joined table are selected in the order of {@link EntityMetadata#getColumnAttributes()}, so each table is read
+ * with a {@link RowHydrator} bound to fixed positions.
+ *
+ * @param <T> root entity type
+ */
+@Getter
+public class JoinFetchQuery<T> {
+    private static final String ROOT_ALIAS = "t0";
+
+    private final EntityMetadata<T> rootMetadata;
+    private final RowHydrator<T> rootHydrator;
+    private final List<Join> joins;
+    private final String sql;
+
+    JoinFetchQuery(EntityMetadata<T> rootMetadata, List<String> attributeNames, Metamodel metamodel) {
+        this.rootMetadata = rootMetadata;
+        this.rootHydrator = RowHydrator.atPosition(rootMetadata, 1);
+        var columns = new StringBuilder(commaSeparatedColumns(rootMetadata, ROOT_ALIAS));
+        var from = new StringBuilder(rootMetadata.getTableName()).append(' ').append(ROOT_ALIAS);
+        var position = rootMetadata.getColumnAttributes().size() + 1;
+        var joins = new ArrayList<Join>();
+        for (var attributeName : attributeNames) {
+            var attribute = rootMetadata.getAttribute(attributeName);
+            if (attribute.getKind() == AttributeKind.BASIC) {
+                throw new IllegalArgumentException("Attribute " + attribute + " is not an association");
+            }
+            var targetMetadata = metamodel.getEntityMetadata(attribute.getTargetEntityType());
+            var alias = "t" + (joins.size() + 1);
+            columns.append(", ").append(commaSeparatedColumns(targetMetadata, alias));
+            var targetIdColumn = alias + "." + targetMetadata.getIdAttribute().getColumnName();
+            var rootIdColumn = ROOT_ALIAS + "." + rootMetadata.getIdAttribute().getColumnName();
+            var joinCondition = attribute.getKind() == AttributeKind.TO_MANY
+                    ? alias + "." + attribute.getMappedByColumnName() + " = " + rootIdColumn
+                    : targetIdColumn + " = " + ROOT_ALIAS + "." + attribute.getColumnName();
+            from.append(" LEFT JOIN ").append(targetMetadata.getTableName()).append(' ').append(alias)
+                    .append(" ON ").append(joinCondition);
+            joins.add(new Join(attribute, targetMetadata, RowHydrator.atPosition(targetMetadata, position)));
+            position += targetMetadata.getColumnAttributes().size();
+        }
+        this.joins = List.copyOf(joins);
+        this.sql = String.format(SELECT_COLUMNS_FROM_WHERE_COLUMN_QUERY_TEMPLATE, columns, from,
+                ROOT_ALIAS + "." + rootMetadata.getIdAttribute().getColumnName());
+    }
+
+    /**
+     * A joined association
+     *
+     * @param attribute      an attribute of the root entity
+     * @param targetMetadata metadata of the joined entity
+     * @param hydrator       a hydrator that reads the columns of the joined entity
+     */
+    public record Join(EntityAttribute attribute, EntityMetadata<?> targetMetadata, RowHydrator<?> hydrator) {
+    }
+}
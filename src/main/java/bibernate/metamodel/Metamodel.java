@@ -0,0 +1,73 @@
+package bibernate.metamodel;
+
+import bibernate.metamodel.access.PropertyAccessStrategy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A registry of {@link EntityMetadata} owned by a {@link bibernate.session.SessionFactory}. Metadata is built on the
+ * first access to an entity type and is shared by all the sessions of the factory.
+ */
+@Log4j2
+@RequiredArgsConstructor
+public class Metamodel {
+    private final PropertyAccessStrategy accessStrategy;
+    private final Map<Class<?>, EntityMetadata<?>> metadataByType = new ConcurrentHashMap<>();
+    private final Map<JoinFetchQueryKey, JoinFetchQuery<?>> joinFetchQueries = new ConcurrentHashMap<>();
+    private final Map<ProjectionKey, ProjectionMapping<?>> projectionMappings = new ConcurrentHashMap<>();
+
+    @SuppressWarnings("unchecked")
+    public <T> EntityMetadata<T> getEntityMetadata(Class<T> entityType) {
+        var metadata = metadataByType.get(entityType);
+        if (metadata == null) {
+            metadata = metadataByType.computeIfAbsent(entityType, type -> new EntityMetadata<>(type, accessStrategy));
+            log.debug("Registered {}", metadata);
+        }
+        return (EntityMetadata<T>) metadata;
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> EntityMetadata<T> getEntityMetadataOf(T entity) {
+        return (EntityMetadata<T>) getEntityMetadata(entity.getClass());
+    }
+
+    /**
+     * Returns a query that loads an entity by id together with given associations. Queries are built once per entity
+     * type and list of attributes.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> JoinFetchQuery<T> getJoinFetchQuery(Class<T> entityType, List<String> attributeNames) {
+        var key = new JoinFetchQueryKey(entityType, attributeNames);
+        var query = joinFetchQueries.get(key);
+        if (query == null) {
+            var metadata = getEntityMetadata(entityType);
+            query = joinFetchQueries.computeIfAbsent(key, k -> new JoinFetchQuery<>(metadata, attributeNames, this));
+        }
+        return (JoinFetchQuery<T>) query;
+    }
+
+    /**
+     * Returns a mapping of rows of an entity table to a projection type. Mappings are built once per entity type and
+     * projection type.
+     */
+    @SuppressWarnings("unchecked")
+    public <R> ProjectionMapping<R> getProjectionMapping(Class<?> entityType, Class<R> resultType) {
+        var key = new ProjectionKey(entityType, resultType);
+        var mapping = projectionMappings.get(key);
+        if (mapping == null) {
+            var metadata = getEntityMetadata(entityType);
+            mapping = projectionMappings.computeIfAbsent(key, k -> new ProjectionMapping<>(metadata, resultType));
+        }
+        return (ProjectionMapping<R>) mapping;
+    }
+
+    private record ProjectionKey(Class<?> entityType, Class<?> resultType) {
+    }
+
+    private record JoinFetchQueryKey(Class<?> entityType, List<String> attributeNames) {
+    }
+}
@@ -0,0 +1,200 @@
+package bibernate.metamodel;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.SneakyThrows;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Proxy;
+import java.lang.reflect.RecordComponent;
+import java.sql.ResultSet;
+import java.util.*;
+
+import static bibernate.util.SqlUtil.commaSeparatedColumns;
+
+/**
+ * A mapping of query rows to a projection type, which is either a record whose components or an interface whose
+ * accessors ({@code name()}, {@code getName()} or {@code isName()}) are named after entity attributes. Only the
+ * columns of those attributes are selected, and a {@link AttributeKind#TO_ONE} attribute is projected as the id of
+ * the related entity. A primitive type is accepted only for the id and for attributes of primitive types, since other
+ * columns may be {@code NULL}.
+ * <p>
+ * A mapping is built once per entity type and projection type by {@link Metamodel}. Records are created with their
+ * canonical constructor handle, and interfaces are implemented with a {@link Proxy} that returns the row values.
+ *
+ * @param <R> projection type
+ */
+@Getter
+public class ProjectionMapping<R> {
+    private final EntityMetadata<?> metadata;
+    private final Class<R> resultType;
+    /**
+     * Projected attributes in the order of the selected columns
+     */
+    private final List<EntityAttribute> attributes;
+    /**
+     * Selected columns, e.g. {@code first_name, last_name}
+     */
+    private final String columns;
+    @Getter(AccessLevel.NONE)
+    private final ColumnReader[] readers;
+    /**
+     * A canonical constructor of a record that takes the row values as {@code Object[]}
+     */
+    @Getter(AccessLevel.NONE)
+    private final MethodHandle recordConstructor;
+    /**
+     * Positions of the row values returned by accessors of an interface
+     */
+    @Getter(AccessLevel.NONE)
+    private final Map<Method, Integer> valueIndexByAccessor;
+
+    ProjectionMapping(EntityMetadata<?> metadata, Class<R> resultType) {
+        this.metadata = metadata;
+        this.resultType = resultType;
+        if (resultType.isRecord()) {
+            var components = resultType.getRecordComponents();
+            var attributes = new ArrayList<EntityAttribute>(components.length);
+            for (var component : components) {
+                attributes.add(resolveAttribute(component.getName(), component.getType()));
+            }
+            this.attributes = List.copyOf(attributes);
+            this.recordConstructor = findRecordConstructor(resultType, components);
+            this.valueIndexByAccessor = null;
+        } else if (resultType.isInterface()) {
+            var attributeByAccessor = new LinkedHashMap<Method, EntityAttribute>();
+            for (var method : resultType.getMethods()) {
+                if (Modifier.isAbstract(method.getModifiers())) {
+                    if (method.getParameterCount() > 0) {
+                        throw new IllegalArgumentException("Projection method " + method + " is not an accessor");
+                    }
+                    attributeByAccessor.put(method, resolveAttribute(attributeNameOf(method), method.getReturnType()));
+                }
+            }
+            this.attributes = attributeByAccessor.values().stream().distinct()
+                    .sorted(Comparator.comparingInt(metadata.getColumnAttributes()::indexOf))
+                    .toList();
+            var valueIndexByAccessor = new HashMap<Method, Integer>();
+            attributeByAccessor.forEach((method, attribute) ->
+                    valueIndexByAccessor.put(method, attributes.indexOf(attribute)));
+            this.valueIndexByAccessor = Map.copyOf(valueIndexByAccessor);
+            this.recordConstructor = null;
+        } else {
+            throw new IllegalArgumentException("Projection type " + resultType.getName()
+                    + " must be a record or an interface");
+        }
+        if (attributes.isEmpty()) {
+            throw new IllegalArgumentException("Projection type " + resultType.getName() + " has no attributes");
+        }
+        this.columns = commaSeparatedColumns(attributes);
+        this.readers = new ColumnReader[attributes.size()];
+        for (int i = 0; i < readers.length; i++) {
+            readers[i] = ColumnReader.forType(attributes.get(i).getColumnJavaType());
+        }
+    }
+
+    private EntityAttribute resolveAttribute(String name, Class<?> type) {
+        var attribute = metadata.getAttribute(name);
+        if (!attribute.isColumn()) {
+            throw new IllegalArgumentException("Attribute " + attribute + " is not mapped to a column");
+        }
+        if (!wrap(type).isAssignableFrom(wrap(attribute.getColumnJavaType()))) {
+            throw new IllegalArgumentException("Projection " + resultType.getSimpleName() + "." + name + " of type "
+                    + type.getName() + " cannot hold values of " + attribute + " of type "
+                    + attribute.getColumnJavaType().getName());
+        }
+        if (type.isPrimitive() && !attribute.getColumnJavaType().isPrimitive() && !attribute.isId()) {
+            throw new IllegalArgumentException("Projection " + resultType.getSimpleName() + "." + name
+                    + " of primitive type " + type.getName() + " cannot hold NULL values of column '"
+                    + attribute.getColumnName() + "'. Use " + wrap(type).getSimpleName() + " instead");
+        }
+        return attribute;
+    }
+
+    private static Class<?> wrap(Class<?> type) {
+        return MethodType.methodType(type).wrap().returnType();
+    }
+
+    private static String attributeNameOf(Method accessor) {
+        var name = accessor.getName();
+        var prefixLength = name.startsWith("get") ? 3
+                : name.startsWith("is") && wrap(accessor.getReturnType()) == Boolean.class ? 2 : 0;
+        if (prefixLength == 0 || name.length() == prefixLength) {
+            return name;
+        }
+        return Character.toLowerCase(name.charAt(prefixLength)) + name.substring(prefixLength + 1);
+    }
+
+    @SneakyThrows
+    private static MethodHandle findRecordConstructor(Class<?> recordType, RecordComponent[] components) {
+        var parameterTypes = Arrays.stream(components).map(RecordComponent::getType).toArray(Class<?>[]::new);
+        var constructor = recordType.getDeclaredConstructor(parameterTypes);
+        constructor.setAccessible(true);
+        return MethodHandles.lookup().unreflectConstructor(constructor)
+                .asSpreader(Object[].class, parameterTypes.length)
+                .asType(MethodType.methodType(Object.class, Object[].class));
+    }
+
+    /**
+     * Maps the current row of a result set that selects {@link #getColumns()} in their order.
+     */
+    @SneakyThrows
+    public R readRow(ResultSet resultSet) {
+        var values = new Object[readers.length];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = readers[i].read(resultSet, i + 1);
+        }
+        if (recordConstructor != null) {
+            return resultType.cast((Object) recordConstructor.invokeExact(values));
+        }
+        return resultType.cast(Proxy.newProxyInstance(resultType.getClassLoader(), new Class<?>[]{resultType},
+                new ProjectionHandler(values)));
+    }
+
+    /**
+     * Implements an interface projection over the values of a single row
+     */
+    private class ProjectionHandler implements InvocationHandler {
+        private final Object[] values;
+
+        private ProjectionHandler(Object[] values) {
+            this.values = values;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            var index = valueIndexByAccessor.get(method);
+            if (index != null) {
+                return values[index];
+            }
+            if (method.isDefault()) {
+                return InvocationHandler.invokeDefault(proxy, method, args);
+            }
+            return switch (method.getName()) {
+                case "equals" -> args[0] != null && Proxy.isProxyClass(args[0].getClass())
+                        && Proxy.getInvocationHandler(args[0]) instanceof ProjectionMapping<?>.ProjectionHandler other
+                        && other.mapping() == ProjectionMapping.this && Arrays.equals(values, other.values);
+                case "hashCode" -> Arrays.hashCode(values);
+                case "toString" -> formatValues(values);
+                default -> throw new UnsupportedOperationException("Unsupported projection method " + method);
+            };
+        }
+
+        private ProjectionMapping<R> mapping() {
+            return ProjectionMapping.this;
+        }
+    }
+
+    private String formatValues(Object[] values) {
+        var joiner = new StringJoiner(", ", resultType.getSimpleName() + "[", "]");
+        for (int i = 0; i < values.length; i++) {
+            joiner.add(attributes.get(i).getName() + "=" + values[i]);
+        }
+        return joiner.toString();
+    }
+}
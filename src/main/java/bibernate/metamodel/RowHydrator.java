@@ -0,0 +1,90 @@
+package bibernate.metamodel;
+
+import lombok.Getter;
+import lombok.SneakyThrows;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.util.HashMap;
+import java.util.Locale;
+
+/**
+ * Reads entity state from the current {@link ResultSet} row. A hydrator is compiled once per entity type and query
+ * shape: column positions are resolved from {@link ResultSetMetaData} when it is created, and every column is read
+ * by position with a getter that matches the attribute type.
+ * <p>
+ * The state has the same layout as an entity snapshot, so {@link AttributeKind#TO_ONE} values are foreign keys.
+ *
+ * @param <T> entity type
+ */
+public class RowHydrator<T> {
+    @Getter
+    private final EntityMetadata<T> metadata;
+    private final int[] positions;
+    private final ColumnReader[] readers;
+
+    RowHydrator(EntityMetadata<T> metadata, int[] positions) {
+        this.metadata = metadata;
+        this.positions = positions;
+        var columnAttributes = metadata.getColumnAttributes();
+        this.readers = new ColumnReader[columnAttributes.size()];
+        for (int i = 0; i < readers.length; i++) {
+            readers[i] = ColumnReader.forType(columnAttributes.get(i).getColumnJavaType());
+        }
+    }
+
+    /**
+     * Creates a hydrator that resolves column positions by their labels.
+     */
+    @SneakyThrows
+    static <T> RowHydrator<T> create(EntityMetadata<T> metadata, ResultSetMetaData resultSetMetaData) {
+        var positionsByLabel = new HashMap<String, Integer>();
+        for (int i = resultSetMetaData.getColumnCount(); i > 0; i--) {
+            positionsByLabel.put(resultSetMetaData.getColumnLabel(i).toLowerCase(Locale.ROOT), i);
+        }
+        var columnAttributes = metadata.getColumnAttributes();
+        var positions = new int[columnAttributes.size()];
+        for (int i = 0; i < positions.length; i++) {
+            var columnName = columnAttributes.get(i).getColumnName();
+            var position = positionsByLabel.get(columnName.toLowerCase(Locale.ROOT));
+            if (position == null) {
+                throw new IllegalStateException("Column '" + columnName + "' is not found in the result set");
+            }
+            positions[i] = position;
+        }
+        return new RowHydrator<>(metadata, positions);
+    }
+
+    /**
+     * Creates a hydrator for a query that selects the entity columns in the order of
+     * {@link EntityMetadata#getColumnAttributes()} starting from a given position.
+     */
+    static <T> RowHydrator<T> atPosition(EntityMetadata<T> metadata, int firstPosition) {
+        var positions = new int[metadata.getColumnAttributes().size()];
+        for (int i = 0; i < positions.length; i++) {
+            positions[i] = firstPosition + i;
+        }
+        return new RowHydrator<>(metadata, positions);
+    }
+
+    /**
+     * Reads the state of the current row. Values are ordered as {@link EntityMetadata#getColumnAttributes()}.
+     */
+    @SneakyThrows
+    public Object[] readState(ResultSet resultSet) {
+        var state = new Object[positions.length];
+        for (int i = 0; i < state.length; i++) {
+            state[i] = readers[i].read(resultSet, positions[i]);
+        }
+        return state;
+    }
+
+    /**
+     * Reads only the id of the current row.
+     */
+    @SneakyThrows
+    public Object readId(ResultSet resultSet) {
+        var idIndex = metadata.getIdIndex();
+        return readers[idIndex].read(resultSet, positions[idIndex]);
+    }
+}
@@ -0,0 +1,78 @@
+package bibernate.metamodel.access;
+
+import lombok.SneakyThrows;
+
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * A {@link PropertyAccessor} that spins a {@link Function} and a {@link BiConsumer} for the entity getter and setter
+ * using {@link LambdaMetafactory}. The generated hidden classes call the accessor methods directly, which is as cheap
+ * as a hand-written call once the JIT inlines it.
+ * <p>
+ * The entity must declare a public getter and setter that follow the JavaBeans naming convention.
+ */
+public class LambdaPropertyAccessor implements PropertyAccessor {
+    private final Function<Object, Object> getter;
+    private final BiConsumer<Object, Object> setter;
+
+    @SuppressWarnings("unchecked")
+    @SneakyThrows
+    public LambdaPropertyAccessor(Method getterMethod, Method setterMethod) {
+        var lookup = MethodHandles.privateLookupIn(getterMethod.getDeclaringClass(), MethodHandles.lookup());
+        var getterHandle = lookup.unreflect(getterMethod);
+        var setterHandle = lookup.unreflect(setterMethod);
+        this.getter = (Function<Object, Object>) LambdaMetafactory.metafactory(lookup, "apply",
+                        MethodType.methodType(Function.class),
+                        MethodType.methodType(Object.class, Object.class),
+                        getterHandle, boxed(getterHandle.type()))
+                .getTarget().invokeExact();
+        this.setter = (BiConsumer<Object, Object>) LambdaMetafactory.metafactory(lookup, "accept",
+                        MethodType.methodType(BiConsumer.class),
+                        MethodType.methodType(void.class, Object.class, Object.class),
+                        setterHandle, boxed(setterHandle.type()))
+                .getTarget().invokeExact();
+    }
+
+    /**
+     * Creates an accessor for a field if the declaring class has a getter and a setter for it.
+     *
+     * @return an accessor or {@code null} if there are no accessor methods
+     */
+    public static LambdaPropertyAccessor forField(Field field) {
+        var type = field.getDeclaringClass();
+        var capitalizedName = Character.toUpperCase(field.getName().charAt(0)) + field.getName().substring(1);
+        var getterPrefix = field.getType() == boolean.class ? "is" : "get";
+        try {
+            var getterMethod = type.getMethod(getterPrefix + capitalizedName);
+            var setterMethod = type.getMethod("set" + capitalizedName, field.getType());
+            if (getterMethod.getReturnType() != field.getType()) {
+                return null;
+            }
+            return new LambdaPropertyAccessor(getterMethod, setterMethod);
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+
+    private static MethodType boxed(MethodType type) {
+        var wrapped = type.wrap();
+        return type.returnType() == void.class ? wrapped.changeReturnType(void.class) : wrapped;
+    }
+
+    @Override
+    public Object get(Object entity) {
+        return getter.apply(entity);
+    }
+
+    @Override
+    public void set(Object entity, Object value) {
+        setter.accept(entity, value);
+    }
+}
@@ -0,0 +1,47 @@
+package bibernate.metamodel.access;
+
+import lombok.SneakyThrows;
+import lombok.extern.log4j.Log4j2;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.util.List;
+
+/**
+ * Creates {@link MethodHandlePropertyAccessor}s by defining a hidden class from the template bytecode for every field.
+ * Each hidden class gets its own getter and setter handles as class data.
+ */
+@Log4j2
+final class MethodHandleAccessorSpinner {
+    private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+    private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+    private static final byte[] TEMPLATE = readTemplate();
+
+    private MethodHandleAccessorSpinner() {
+    }
+
+    @SneakyThrows
+    static PropertyAccessor spin(Field field) {
+        log.trace("Spinning a method handle accessor for field {}", field);
+        var fieldLookup = MethodHandles.privateLookupIn(field.getDeclaringClass(), MethodHandles.lookup());
+        var getter = fieldLookup.unreflectGetter(field).asType(GETTER_TYPE);
+        var setter = fieldLookup.unreflectSetter(field).asType(SETTER_TYPE);
+        var accessorLookup = MethodHandles.lookup().defineHiddenClassWithClassData(TEMPLATE, List.of(getter, setter),
+                true);
+        var constructor = accessorLookup.findConstructor(accessorLookup.lookupClass(),
+                MethodType.methodType(void.class));
+        return (PropertyAccessor) constructor.invoke();
+    }
+
+    @SneakyThrows
+    private static byte[] readTemplate() {
+        var resourceName = MethodHandlePropertyAccessor.class.getSimpleName() + ".class";
+        try (var input = MethodHandlePropertyAccessor.class.getResourceAsStream(resourceName)) {
+            if (input == null) {
+                throw new IllegalStateException("Cannot read the bytecode of " + MethodHandlePropertyAccessor.class);
+            }
+            return input.readAllBytes();
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package bibernate.metamodel.access;
+
+import lombok.SneakyThrows;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Field;
+
+/**
+ * A {@link PropertyAccessor} that uses field getter and setter {@link MethodHandle}s. Access checks are performed once
+ * when the handles are unreflected, so unlike {@link Field#get(Object)} there is no check per call.
+ * <p>
+ * This class is a template: {@link MethodHandleAccessorSpinner} defines a hidden copy of it for every field and passes
+ * the handles as class data. They are stored in {@code static final} fields, which the JIT trusts as constants, so
+ * the handle invocation is inlined down to a plain field access. Handles in instance fields would not be
+ * constant-folded. The template itself holds no handles and must not be used directly.
+ */
+final class MethodHandlePropertyAccessor implements PropertyAccessor {
+    private static final MethodHandle GETTER = classDataAt(0);
+    private static final MethodHandle SETTER = classDataAt(1);
+
+    @SneakyThrows
+    private static MethodHandle classDataAt(int index) {
+        return MethodHandles.classDataAt(MethodHandles.lookup(), "_", MethodHandle.class, index);
+    }
+
+    @Override
+    @SneakyThrows
+    public Object get(Object entity) {
+        return GETTER.invokeExact(entity);
+    }
+
+    @Override
+    @SneakyThrows
+    public void set(Object entity, Object value) {
+        SETTER.invokeExact(entity, value);
+    }
+}
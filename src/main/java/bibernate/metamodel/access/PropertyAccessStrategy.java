@@ -0,0 +1,38 @@
+package bibernate.metamodel.access;
+
+import lombok.extern.log4j.Log4j2;
+
+import java.lang.reflect.Field;
+
+/**
+ * Defines how {@link PropertyAccessor}s are created for entity attributes.
+ */
+@Log4j2
+public enum PropertyAccessStrategy {
+    /**
+     * Field access via {@link java.lang.invoke.MethodHandle}s. Works for any field, this is the default.
+     */
+    METHOD_HANDLE {
+        @Override
+        public PropertyAccessor createAccessor(Field field) {
+            return MethodHandleAccessorSpinner.spin(field);
+        }
+    },
+    /**
+     * Getter/setter access via classes generated by {@link java.lang.invoke.LambdaMetafactory}. Falls back to
+     * {@link #METHOD_HANDLE} when a field has no accessor methods.
+     */
+    LAMBDA {
+        @Override
+        public PropertyAccessor createAccessor(Field field) {
+            var accessor = LambdaPropertyAccessor.forField(field);
+            if (accessor == null) {
+                log.debug("No getter/setter found for field {}. Falling back to method handles", field);
+                return METHOD_HANDLE.createAccessor(field);
+            }
+            return accessor;
+        }
+    };
+
+    public abstract PropertyAccessor createAccessor(Field field);
+}
@@ -0,0 +1,11 @@
+package bibernate.metamodel.access;
+
+/**
+ * Reads and writes a value of a single entity attribute. Accessors are created once per attribute by a
+ * {@link PropertyAccessStrategy} and are reused for every entity instance.
+ */
+public interface PropertyAccessor {
+    Object get(Object entity);
+
+    void set(Object entity, Object value);
+}
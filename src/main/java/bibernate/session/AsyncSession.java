@@ -0,0 +1,39 @@
+package bibernate.session;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletionStage;
+import java.util.function.Function;
+
+/**
+ * A non-blocking view of a {@link Session}. Operations return immediately and run JDBC work on the executor of the
+ * session factory ({@link Settings#getAsyncExecutor()}).
+ * <p>
+ * The underlying session is not thread-safe, so operations of one async session are executed one at a time in the
+ * order they were called, and never overlap. Independent loads are issued concurrently by using several async
+ * sessions, each of which holds its own connection.
+ * <p>
+ * Lazy collections of the returned entities are not loaded on the caller's thread, as that could overlap with a
+ * running operation. Accessing an uninitialized collection outside of {@link #withSession(Function)} throws an
+ * {@link IllegalStateException}, so collections must be initialized in a {@code withSession} task or fetched with
+ * a {@link FetchPlan}.
+ */
+public interface AsyncSession {
+    <T> CompletionStage<T> find(Class<T> entityType, Object id);
+
+    <T> CompletionStage<List<T>> findAll(Class<T> entityType, Collection<?> ids);
+
+    <T> CompletionStage<Void> persist(T entity);
+
+    <T> CompletionStage<Void> remove(T entity);
+
+    CompletionStage<Void> flush();
+
+    /**
+     * Runs arbitrary work with the underlying session in turn with the other operations. The session must not escape
+     * the function.
+     */
+    <R> CompletionStage<R> withSession(Function<Session, R> work);
+
+    CompletionStage<Void> close();
+}
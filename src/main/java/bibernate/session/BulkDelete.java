@@ -0,0 +1,30 @@
+package bibernate.session;
+
+import java.util.Collection;
+
+/**
+ * A set-based {@code DELETE} of entities of one type that is executed as a single statement without loading the
+ * entities. Conditions are combined with {@code AND}, and a delete without conditions removes all the rows.
+ *
+ * @param <T> entity type
+ * @see Session#createDelete(Class)
+ */
+public interface BulkDelete<T> {
+    /**
+     * Adds a condition that an attribute equals a given value, or is {@code NULL} if the value is {@code null}.
+     * A {@link bibernate.annotation.ManyToOne} attribute accepts either a related entity or its id.
+     */
+    BulkDelete<T> where(String attributeName, Object value);
+
+    /**
+     * Adds a condition that an attribute equals any of given values. An empty collection matches no rows. A list
+     * longer than {@link Settings#getMaxInListSize()} is split, and the delete is executed once per
+     * chunk in one transaction.
+     */
+    BulkDelete<T> whereIn(String attributeName, Collection<?> values);
+
+    /**
+     * Executes the delete and returns the number of deleted rows.
+     */
+    int execute();
+}
@@ -0,0 +1,35 @@
+package bibernate.session;
+
+import java.util.Collection;
+
+/**
+ * A set-based {@code UPDATE} of entities of one type that is executed as a single statement without loading the
+ * entities. Conditions are combined with {@code AND}, and an update without conditions changes all the rows.
+ *
+ * @param <T> entity type
+ * @see Session#createUpdate(Class)
+ */
+public interface BulkUpdate<T> {
+    /**
+     * Sets an attribute to a given value. A {@link bibernate.annotation.ManyToOne} attribute accepts either a related
+     * entity or its id.
+     */
+    BulkUpdate<T> set(String attributeName, Object value);
+
+    /**
+     * Adds a condition that an attribute equals a given value, or is {@code NULL} if the value is {@code null}.
+     */
+    BulkUpdate<T> where(String attributeName, Object value);
+
+    /**
+     * Adds a condition that an attribute equals any of given values. An empty collection matches no rows. A list
+     * longer than {@link Settings#getMaxInListSize()} is split, and the update is executed once per
+     * chunk in one transaction.
+     */
+    BulkUpdate<T> whereIn(String attributeName, Collection<?> values);
+
+    /**
+     * Executes the update and returns the number of updated rows.
+     */
+    int execute();
+}
@@ -0,0 +1,21 @@
+package bibernate.session;
+
+import java.util.List;
+
+/**
+ * Describes associations that are loaded together with an entity in a single query. Each name refers to a
+ * {@link bibernate.annotation.OneToMany} or {@link bibernate.annotation.ManyToOne} attribute of the loaded entity.
+ * <pre>
+ * var person = session.find(Person.class, id, FetchPlan.of("notes"));
+ * </pre>
+ * Note that fetching several collections at once multiplies the number of joined rows.
+ */
+public record FetchPlan(List<String> attributeNames) {
+    public FetchPlan {
+        attributeNames = List.copyOf(attributeNames);
+    }
+
+    public static FetchPlan of(String... attributeNames) {
+        return new FetchPlan(List.of(attributeNames));
+    }
+}
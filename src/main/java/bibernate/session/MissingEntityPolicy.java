@@ -0,0 +1,16 @@
+package bibernate.session;
+
+/**
+ * Defines what a multi-id lookup ({@link Session#findAll(Class, java.util.Collection, MissingEntityPolicy)}) returns
+ * for ids that have no row.
+ */
+public enum MissingEntityPolicy {
+    /**
+     * Missing entities are left out, so the result may be shorter than the list of ids
+     */
+    SKIP,
+    /**
+     * A {@code null} is returned in place of each missing entity, so results match the ids by position
+     */
+    RETURN_NULL
+}
@@ -0,0 +1,35 @@
+package bibernate.session;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * A query that selects only the columns of a projection type and maps rows directly to records or interfaces. The
+ * results are plain values: they are not managed by the session, and no entities, snapshots or lazy collections are
+ * created. The query reads the database state, so pending changes of the session must be flushed to be seen.
+ *
+ * @param <R> projection type
+ * @see Session#createProjection(Class, Class)
+ */
+public interface ProjectionQuery<R> {
+    /**
+     * Adds a condition that an attribute equals a given value, or is {@code NULL} if the value is {@code null}.
+     * A {@link bibernate.annotation.ManyToOne} attribute accepts either a related entity or its id.
+     */
+    ProjectionQuery<R> where(String attributeName, Object value);
+
+    /**
+     * Adds a condition that an attribute equals any of given values. An empty collection matches no rows. A list
+     * longer than {@link Settings#getMaxInListSize()} is rejected, as the rows cannot be ordered and limited across
+     * several queries.
+     */
+    ProjectionQuery<R> whereIn(String attributeName, Collection<?> values);
+
+    ProjectionQuery<R> orderBy(String attributeName);
+
+    ProjectionQuery<R> orderByDescending(String attributeName);
+
+    ProjectionQuery<R> limit(int maxResults);
+
+    List<R> list();
+}
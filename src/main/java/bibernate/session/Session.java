@@ -1,5 +1,8 @@
 package bibernate.session;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
 
 /**
  * This is a main Bibernate API.
@@ -9,9 +12,83 @@ public interface Session {
 
     <T> T find(Class<T> entityType, Object id);
 
+    /**
+     * Finds an entity by id and loads the associations listed in the fetch plan with the same query using
+     * {@code LEFT JOIN}s, so accessing them does not issue more queries.
+     */
+    <T> T find(Class<T> entityType, Object id, FetchPlan fetchPlan);
+
+    /**
+     * Finds entities by ids. Entities that are already in the session or in the second-level cache are returned from
+     * there, and the rest are loaded with {@code WHERE id IN (...)} queries. Results are in the order of the ids, and
+     * missing entities are skipped.
+     */
+    <T> List<T> findAll(Class<T> entityType, Collection<?> ids);
+
+    <T> List<T> findAll(Class<T> entityType, Collection<?> ids, MissingEntityPolicy missingEntityPolicy);
+
+    /**
+     * Streams entities whose attribute equals a given value. Rows are read from an open database cursor while the
+     * stream is consumed, so the whole result is never materialized. The stream must be closed, e.g. with
+     * try-with-resources.
+     */
+    <T> Stream<T> stream(Class<T> entityType, String attributeName, Object value);
+
+    <T> Stream<T> stream(Class<T> entityType, String attributeName, Object value, StreamOptions options);
+
+    /**
+     * Streams entities selected by a native SQL query. The query must select all the entity columns.
+     *
+     * @see #stream(Class, String, Object)
+     */
+    <T> Stream<T> streamQuery(Class<T> entityType, String sql, StreamOptions options, Object... params);
+
+    /**
+     * Creates a query that maps rows of an entity table to a record or an interface whose components or accessors are
+     * named after entity attributes, e.g. {@code session.createProjection(Person.class, PersonName.class).list()} with
+     * {@code record PersonName(String firstName, String lastName)}. Only the projected columns are selected, and the
+     * results never enter the persistence context.
+     */
+    <R> ProjectionQuery<R> createProjection(Class<?> entityType, Class<R> resultType);
+
     <T> void remove(T person);
 
+    /**
+     * Creates a set-based update of entities of a given type, e.g.
+     * {@code session.createUpdate(Person.class).set("lastName", "Smith").where("firstName", "John").execute()}.
+     * <p>
+     * Pending changes are flushed before the update is executed. Managed entities of the type are detached from the
+     * session and evicted from the second-level cache, so they are loaded again with the new state.
+     */
+    <T> BulkUpdate<T> createUpdate(Class<T> entityType);
+
+    /**
+     * Creates a set-based delete of entities of a given type, e.g.
+     * {@code session.createDelete(Note.class).where("person", person).execute()}.
+     * <p>
+     * Pending changes are flushed before the delete is executed. Managed entities of the type are detached from the
+     * session and evicted from the second-level cache.
+     */
+    <T> BulkDelete<T> createDelete(Class<T> entityType);
+
     void flush();
 
+    /**
+     * Starts a transaction on the session connection. All reads and writes are performed in this transaction until it
+     * is committed or rolled back. Without an explicit transaction every flush is committed on its own.
+     */
+    void beginTransaction();
+
+    /**
+     * Flushes the session and commits the current transaction. If a flush has failed in the transaction, it is rolled
+     * back instead and an {@link IllegalStateException} is thrown, so a part of the changes is never committed.
+     */
+    void commit();
+
+    /**
+     * Rolls back the current transaction and discards all the pending changes and managed entities.
+     */
+    void rollback();
+
     void close();
 }
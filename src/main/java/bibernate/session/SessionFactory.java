@@ -1,6 +1,25 @@
 package bibernate.session;
 
+import bibernate.stat.Statistics;
+
 public interface SessionFactory {
 
     Session openSession();
+
+    /**
+     * Opens a session without a persistence context for bulk work.
+     */
+    StatelessSession openStatelessSession();
+
+    /**
+     * Opens a session whose operations run asynchronously on the executor of the factory.
+     */
+    AsyncSession openAsyncSession();
+
+    Statistics getStatistics();
+
+    /**
+     * Releases the resources owned by the factory, e.g. the connection pool.
+     */
+    void close();
 }
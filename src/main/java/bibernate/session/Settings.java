@@ -0,0 +1,128 @@
+package bibernate.session;
+
+import bibernate.metamodel.access.PropertyAccessStrategy;
+import lombok.Builder;
+import lombok.Getter;
+
+import java.time.Duration;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Configuration of a {@link SessionFactory}. Use {@link #builder()} to override the defaults.
+ */
+@Getter
+@Builder
+public class Settings {
+    /**
+     * How entity attributes are read and written
+     */
+    @Builder.Default
+    private final PropertyAccessStrategy propertyAccessStrategy = PropertyAccessStrategy.METHOD_HANDLE;
+    /**
+     * Max number of statements sent in one JDBC batch on flush. Values less than 2 disable batching
+     */
+    @Builder.Default
+    private final int jdbcBatchSize = 50;
+    /**
+     * Max number of ids loaded with one {@code WHERE id IN (...)} query when related entities are fetched in batches.
+     * Values less than 2 disable batch fetching
+     */
+    @Builder.Default
+    private final int batchFetchSize = 16;
+    /**
+     * Max number of values in one {@code IN (...)} list, used by multi-id lookups, bulk statements and projections.
+     * It should not exceed the bind parameter limit of the database driver
+     */
+    @Builder.Default
+    private final int maxInListSize = 1000;
+    /**
+     * Min number of managed entities for which flush compares snapshots in parallel on the {@link #dirtyCheckPool}.
+     * Values less than 1 disable parallel dirty checking
+     */
+    @Builder.Default
+    private final int parallelDirtyCheckThreshold = 10_000;
+    /**
+     * A pool that compares snapshots in parallel. The JVM-wide common pool is shared with every other parallel stream
+     * in the process, so a dedicated pool isolates large flushes from them
+     */
+    @Builder.Default
+    private final ForkJoinPool dirtyCheckPool = ForkJoinPool.commonPool();
+    /**
+     * Max number of prepared statements cached per session connection
+     */
+    @Builder.Default
+    private final int statementCacheSize = 32;
+    /**
+     * Whether the {@link javax.sql.DataSource} is wrapped with a built-in connection pool
+     */
+    @Builder.Default
+    private final boolean poolEnabled = false;
+    @Builder.Default
+    private final int poolMinSize = 0;
+    @Builder.Default
+    private final int poolMaxSize = 10;
+    /**
+     * Max time to wait for a free connection when the pool is exhausted
+     */
+    @Builder.Default
+    private final Duration poolConnectionTimeout = Duration.ofSeconds(30);
+    /**
+     * Idle connections above the min size are closed after this time
+     */
+    @Builder.Default
+    private final Duration poolIdleTimeout = Duration.ofMinutes(10);
+    /**
+     * Connections borrowed for longer than this time are reported as leaked. Zero disables leak detection
+     */
+    @Builder.Default
+    private final Duration poolLeakDetectionThreshold = Duration.ZERO;
+    @Builder.Default
+    private final boolean poolValidateOnBorrow = true;
+    /**
+     * Whether state of {@link bibernate.annotation.Cacheable} entities is cached at the session factory level
+     */
+    @Builder.Default
+    private final boolean secondLevelCacheEnabled = false;
+    /**
+     * Max number of entries in a second-level cache region (per entity type)
+     */
+    @Builder.Default
+    private final int secondLevelCacheMaxEntries = 10_000;
+    @Builder.Default
+    private final Duration secondLevelCacheTtl = Duration.ofMinutes(10);
+    /**
+     * Whether results of the queries that select entities by a column value, including lazy collection loads, are
+     * cached at the session factory level as lists of ids. It applies to entities cached in the second-level cache
+     */
+    @Builder.Default
+    private final boolean queryCacheEnabled = false;
+    @Builder.Default
+    private final int queryCacheMaxEntries = 10_000;
+    /**
+     * Max total number of ids stored in the query cache. It bounds the memory used by the cache, and results with more
+     * ids are not cached
+     */
+    @Builder.Default
+    private final long queryCacheMaxIds = 1_000_000;
+
+    /**
+     * Whether the session factory collects {@link bibernate.stat.Statistics}
+     */
+    @Builder.Default
+    private final boolean statisticsEnabled = false;
+    /**
+     * Whether enabled statistics are registered as an MXBean named {@code bibernate:type=Statistics,name=...}
+     */
+    @Builder.Default
+    private final boolean statisticsJmxEnabled = false;
+    /**
+     * An executor that runs JDBC work of {@link AsyncSession}s. If it is not set, the session factory uses a
+     * virtual thread per task when the JVM supports virtual threads, and a cached pool of daemon threads otherwise
+     */
+    private final Executor asyncExecutor;
+
+    public static Settings defaults() {
+        return builder().build();
+    }
+}
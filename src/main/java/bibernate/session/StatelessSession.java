@@ -0,0 +1,31 @@
+package bibernate.session;
+
+/**
+ * A session for bulk work that has no persistence context. Every operation is executed immediately, entities are
+ * never cached, snapshotted or dirty checked, and loaded entities are not managed by the session.
+ * <p>
+ * {@link bibernate.annotation.ManyToOne} references are loaded eagerly, while {@link bibernate.annotation.OneToMany}
+ * collections are not loaded at all. Without an explicit transaction every operation is committed on its own.
+ */
+public interface StatelessSession {
+    <T> void insert(T entity);
+
+    <T> void update(T entity);
+
+    <T> void delete(T entity);
+
+    /**
+     * Loads an entity by id.
+     *
+     * @return a new entity instance or {@code null} if there is no such row
+     */
+    <T> T get(Class<T> entityType, Object id);
+
+    void beginTransaction();
+
+    void commit();
+
+    void rollback();
+
+    void close();
+}
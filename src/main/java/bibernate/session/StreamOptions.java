@@ -0,0 +1,28 @@
+package bibernate.session;
+
+import lombok.Builder;
+import lombok.Getter;
+
+/**
+ * Options of a streamed query (see {@link Session#stream(Class, String, Object, StreamOptions)}). Use
+ * {@link #builder()} to override the defaults.
+ */
+@Getter
+@Builder
+public class StreamOptions {
+    /**
+     * Number of rows the JDBC driver fetches from the database cursor at once
+     */
+    @Builder.Default
+    private final int fetchSize = 100;
+    /**
+     * Whether each entity is removed from the persistence context after it is consumed by the stream, so memory
+     * stays constant regardless of the number of rows. Detached entities are not dirty checked
+     */
+    @Builder.Default
+    private final boolean detachEntities = false;
+
+    public static StreamOptions defaults() {
+        return builder().build();
+    }
+}
@@ -0,0 +1,60 @@
+package bibernate.session.impl;
+
+import bibernate.metamodel.EntityAttribute;
+import bibernate.metamodel.EntityMetadata;
+import bibernate.stat.StatementKind;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * A base of set-based statements. It collects {@code WHERE} conditions with their params, and executes the statement
+ * in the session.
+ *
+ * @param <T> entity type
+ */
+abstract class AbstractBulkStatement<T> {
+    protected final StatefulSession session;
+    protected final EntityMetadata<T> metadata;
+    private final WhereClause whereClause;
+
+    AbstractBulkStatement(StatefulSession session, EntityMetadata<T> metadata) {
+        this.session = session;
+        this.metadata = metadata;
+        this.whereClause = new WhereClause(metadata);
+    }
+
+    protected void addCondition(String attributeName, Object value) {
+        whereClause.addEquals(attributeName, value);
+    }
+
+    protected void addInCondition(String attributeName, Collection<?> values) {
+        whereClause.addIn(attributeName, values);
+    }
+
+    protected EntityAttribute getColumnAttribute(String attributeName) {
+        return WhereClause.getColumnAttribute(metadata, attributeName);
+    }
+
+    /**
+     * Executes the statement. {@code IN} lists longer than {@link bibernate.session.Settings#getMaxInListSize()} are
+     * split, and the statement is executed once per chunk.
+     *
+     * @param sqlByWhereClause builds the statement SQL from a {@code WHERE} clause, which is empty without conditions
+     * @param params           params that precede the params of the {@code WHERE} clause
+     */
+    protected int execute(StatementKind kind, Function<String, String> sqlByWhereClause, List<Object> params) {
+        if (whereClause.isMatchingNoRows()) {
+            return 0;
+        }
+        var statements = new ArrayList<SqlWithParams>();
+        for (var chunk : whereClause.toChunks(session.getMaxInListSize())) {
+            var allParams = new ArrayList<>(params);
+            allParams.addAll(chunk.params());
+            statements.add(new SqlWithParams(sqlByWhereClause.apply(chunk.sql()), allParams));
+        }
+        return session.executeBulk(metadata, kind, statements);
+    }
+}
@@ -0,0 +1,15 @@
+package bibernate.session.impl;
+
+import bibernate.metamodel.EntityAttribute;
+
+import java.util.List;
+
+/**
+ * An entity found by dirty checking together with its changed attributes
+ *
+ * @param entity          a managed entity
+ * @param dirtyAttributes changed attributes in the order of
+ *                        {@link bibernate.metamodel.EntityMetadata#getUpdatableAttributes()}
+ */
+public record DirtyEntity(Object entity, List<EntityAttribute> dirtyAttributes) {
+}
@@ -1,52 +1,87 @@
 package bibernate.session.impl;
 
+import bibernate.cache.QueryCache;
+import bibernate.cache.SecondLevelCache;
 import bibernate.collection.LazyList;
+import bibernate.jfr.LazyListInitializationEvent;
+import bibernate.jfr.StatementExecutionEvent;
+import bibernate.metamodel.AttributeKind;
+import bibernate.metamodel.EntityAttribute;
+import bibernate.metamodel.EntityMetadata;
+import bibernate.metamodel.JoinFetchQuery;
+import bibernate.metamodel.Metamodel;
+import bibernate.metamodel.ProjectionMapping;
+import bibernate.metamodel.RowHydrator;
+import bibernate.session.FetchPlan;
+import bibernate.session.MissingEntityPolicy;
+import bibernate.session.StreamOptions;
+import bibernate.stat.SimpleStatistics;
+import bibernate.stat.StatementKind;
 import bibernate.util.EntityKey;
-import lombok.RequiredArgsConstructor;
 import lombok.SneakyThrows;
 import lombok.extern.log4j.Log4j2;
 
-import javax.sql.DataSource;
-import java.lang.reflect.Field;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
-import java.util.ArrayList;
-import java.util.List;
+import java.sql.SQLException;
+import java.util.*;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
 import java.util.function.Supplier;
-
-import static bibernate.util.EntityUtil.*;
-import static bibernate.util.SqlUtil.*;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
- * {@link EntityPersister} is a reflection-based CRUD API for entities that is implemented using JDBC API.
+ * {@link EntityPersister} is a metadata-based CRUD API for entities that is implemented using JDBC API. All the mapping
+ * information and SQL statements are taken from {@link EntityMetadata} provided by {@link Metamodel}.
  **/
 @Log4j2
-@RequiredArgsConstructor
 public class EntityPersister {
-    private final DataSource dataSource;
     private final StatefulSession session;
     private final PersistenceContext persistenceContext;
+    private final Metamodel metamodel;
+    private final SecondLevelCache secondLevelCache;
+    private final QueryCache queryCache;
+    private final SimpleStatistics statistics;
+    private final int batchSize;
+    private final int batchFetchSize;
+    private final int maxInListSize;
+    /**
+     * Lazy collections that are not loaded yet by collection role (a {@link AttributeKind#TO_MANY} attribute) and
+     * owner id
+     */
+    private final Map<EntityAttribute, Map<Object, LazyList<?>>> uninitializedCollections = new HashMap<>();
+
+    public EntityPersister(SimpleSessionFactory sessionFactory, StatefulSession session,
+                           PersistenceContext persistenceContext) {
+        this.metamodel = sessionFactory.getMetamodel();
+        this.secondLevelCache = sessionFactory.getSecondLevelCache();
+        this.queryCache = sessionFactory.getQueryCache();
+        this.statistics = sessionFactory.getStatistics();
+        this.batchSize = sessionFactory.getSettings().getJdbcBatchSize();
+        this.batchFetchSize = sessionFactory.getSettings().getBatchFetchSize();
+        this.maxInListSize = sessionFactory.getSettings().getMaxInListSize();
+        this.session = session;
+        this.persistenceContext = persistenceContext;
+    }
 
-    @SneakyThrows
     public <T> T insert(T entity) {
-        log.trace("Inserting entity {}", entity);
-        var entityType = entity.getClass();
-        try (var connection = dataSource.getConnection()) {
-            var tableName = resolveTableName(entityType);
-            log.trace("Resolved table name -> '{}'", tableName);
-            var columns = commaSeparatedInsertableColumns(entityType);
-            var params = commaSeparatedInsertableParams(entityType);
-            var insertQuery = String.format(INSERT_INTO_TABLE_VALUES_TEMPLATE, tableName, columns, params);
-            log.trace("Preparing insert statement: {}", insertQuery);
-            try (var insertStatement = connection.prepareStatement(insertQuery)) {
-                fillInsertStatementParams(insertStatement, entity);
-                log.debug("SQL: {}", insertStatement);
-                insertStatement.executeUpdate();
-            }
-        }
+        insertAll(List.of(entity));
         return entity;
     }
 
+    /**
+     * Inserts entities of the same type using a single statement. Rows are sent as JDBC batches.
+     */
+    @SneakyThrows
+    public void insertAll(List<?> entities) {
+        log.trace("Inserting {} entities", entities.size());
+        var metadata = metamodel.getEntityMetadataOf(entities.get(0));
+        executeBatched(metadata.getInsertSql(), StatementKind.INSERT, metadata, entities,
+                (statement, entity) -> setParamsFromAttributes(statement, entity, metadata.getColumnAttributes()));
+        statistics.entitiesInserted(metadata.getEntityType(), entities.size());
+    }
+
     @SneakyThrows
     public <T> T findById(Class<T> entityType, Object id) {
         log.trace("Selecting entity {} by id = {}", entityType.getSimpleName(), id);
@@ -54,157 +89,825 @@ public class EntityPersister {
         var cachedEntity = persistenceContext.getEntity(key);
         if (cachedEntity != null) {
             log.trace("Returning cached entity from the context {}", cachedEntity);
+            statistics.contextHit(entityType);
             return entityType.cast(cachedEntity);
         }
+        statistics.contextMiss(entityType);
+        var metadata = metamodel.getEntityMetadata(entityType);
+        var cachedState = getFromSecondLevelCache(metadata, id);
+        if (cachedState != null) {
+            log.trace("Assembling entity from the second-level cache state {}", cachedState);
+            return createEntityFrom(metadata, cachedState);
+        }
         log.trace("No cached entity found... Loading entity from the DB");
-        var idField = getIdField(entityType);
-        return findOneBy(entityType, idField, id);
+        return findOneBy(entityType, metadata.getIdAttribute().getColumnName(), id);
     }
 
+    /**
+     * Loads an entity by id together with the associations of the fetch plan using a single {@code LEFT JOIN} query.
+     * Joined rows are de-duplicated by id, and lazy collections of the entity are initialized with the loaded elements.
+     */
     @SneakyThrows
-    public <T> List<T> findAllBy(Class<T> entityType, Field field, Object columnValue) {
+    public <T> T findById(Class<T> entityType, Object id, FetchPlan fetchPlan) {
+        log.trace("Selecting entity {} by id = {} with {}", entityType.getSimpleName(), id, fetchPlan);
+        var query = metamodel.getJoinFetchQuery(entityType, fetchPlan.attributeNames());
+        var managedEntity = persistenceContext.getEntity(EntityKey.of(entityType, id));
+        if (managedEntity != null && isFetched(managedEntity, query)) {
+            log.trace("Returning cached entity from the context {}", managedEntity);
+            statistics.contextHit(entityType);
+            return entityType.cast(managedEntity);
+        }
+        statistics.contextMiss(entityType);
+        var selectStatement = session.prepareStatement(query.getSql());
+        selectStatement.setObject(1, id);
+        log.debug("SQL: {}", selectStatement);
+        statistics.statementsExecuted(StatementKind.SELECT, 1);
+        var joins = query.getJoins();
+        var joinedStates = new ArrayList<Map<Object, Object[]>>(joins.size());
+        joins.forEach(join -> joinedStates.add(new LinkedHashMap<>()));
+        Object[] rootState = null;
+        var rowCount = 0;
+        var cacheTimestamp = secondLevelCache.currentTimestamp();
+        var event = new StatementExecutionEvent();
+        event.begin();
+        try (var resultSet = selectStatement.executeQuery()) {
+            while (resultSet.next()) {
+                rowCount++;
+                if (rootState == null) {
+                    rootState = query.getRootHydrator().readState(resultSet);
+                }
+                for (int i = 0; i < joins.size(); i++) {
+                    var hydrator = joins.get(i).hydrator();
+                    var joinedId = hydrator.readId(resultSet);
+                    if (joinedId != null && !joinedStates.get(i).containsKey(joinedId)) {
+                        joinedStates.get(i).put(joinedId, hydrator.readState(resultSet));
+                    }
+                }
+            }
+        }
+        commitStatementEvent(event, query.getSql(), StatementKind.SELECT, query.getRootMetadata(), 1, rowCount);
+        if (rootState == null) {
+            throw new IllegalStateException("The result must contain exactly one row");
+        }
+        putToSecondLevelCache(query.getRootMetadata(), List.<Object[]>of(rootState), cacheTimestamp);
+        for (int i = 0; i < joins.size(); i++) {
+            putToSecondLevelCache(joins.get(i).targetMetadata(), joinedStates.get(i).values(), cacheTimestamp);
+        }
+        for (int i = 0; i < joins.size(); i++) {// related entities are created first, so the root can reference them
+            if (joins.get(i).attribute().getKind() == AttributeKind.TO_ONE) {
+                for (var state : joinedStates.get(i).values()) {
+                    createEntityFrom(joins.get(i).targetMetadata(), state);
+                }
+            }
+        }
+        var entity = createEntityFrom(query.getRootMetadata(), rootState);
+        for (int i = 0; i < joins.size(); i++) {
+            var join = joins.get(i);
+            if (join.attribute().getKind() == AttributeKind.TO_MANY) {
+                initializeCollection(entity, id, join, joinedStates.get(i).values());
+            }
+        }
+        return entity;
+    }
+
+    private boolean isFetched(Object entity, JoinFetchQuery<?> query) {
+        for (var join : query.getJoins()) {
+            if (join.attribute().getValue(entity) instanceof LazyList<?> list && !list.isInitialized()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void initializeCollection(Object owner, Object ownerId, JoinFetchQuery.Join join,
+                                      Collection<Object[]> elementStates) {
+        if (!(join.attribute().getValue(owner) instanceof LazyList<?> list) || list.isInitialized()) {
+            return;
+        }
+        var event = new LazyListInitializationEvent();
+        event.begin();
+        var elementStateList = new ArrayList<>(elementStates);
+        if (elementStateList.size() > 1) {
+            batchLoadToOneReferences(join.targetMetadata(), elementStateList);
+        }
+        var elements = new ArrayList<>(elementStateList.size());
+        for (var state : elementStateList) {
+            elements.add(createEntityFrom(join.targetMetadata(), state));
+        }
+        ((LazyList<Object>) list).initialize(elements);
+        statistics.lazyListsInitialized(1);
+        commitLazyListEvent(event, join.attribute(), ownerId, elements.size(), 0);
+        var pendingCollections = uninitializedCollections.get(join.attribute());
+        if (pendingCollections != null) {
+            pendingCollections.remove(ownerId);
+        }
+    }
+
+    /**
+     * Finds entities whose column equals a given value. When the query cache is enabled, only ids are taken from a
+     * cached result, and entities are resolved through the context and the second-level cache.
+     */
+    public <T> List<T> findAllBy(Class<T> entityType, String columnName, Object columnValue) {
         log.trace("Selecting from table by column value");
-        var list = new ArrayList<T>();
-        try (var connection = dataSource.getConnection()) {
-            var tableName = resolveTableName(entityType);
-            log.trace("Resolved table name -> {}", tableName);
-            var columnName = resolveColumnName(field);
-            log.trace("Resolved column name -> {}", columnName);
-            var selectSql = String.format(SELECT_FROM_TABLE_BY_COLUMN_QUERY_TEMPLATE, tableName, columnName);
-            log.trace("Preparing select statement: {}", selectSql);
-            try (var selectStatement = connection.prepareStatement(selectSql)) {
-                selectStatement.setObject(1, columnValue);
-                log.debug("SQL: {}", selectStatement);
-                var resultSet = selectStatement.executeQuery();
-                while (resultSet.next()) {
-                    var entity = createEntityFrom(entityType, resultSet);
-                    list.add(entity);
+        var metadata = metamodel.getEntityMetadata(entityType);
+        var cachedResult = findCachedBy(metadata, columnName, columnValue);
+        if (cachedResult != null) {
+            return cachedResult;
+        }
+        var timestamp = queryCache.isEnabled() ? queryCache.nextTimestamp() : 0L;
+        var selectSql = metadata.getSelectByColumnSql(columnName);
+        var entities = loadEntities(metadata, selectSql, statement -> statement.setObject(1, columnValue));
+        cacheQueryResult(metadata, columnName, columnValue, entities, timestamp);
+        return entities;
+    }
+
+    /**
+     * Results are cached only for entities that are cached in the second-level cache, otherwise resolving cached ids
+     * would take another query. The query cache is not used for tables written in the current transaction, as cached
+     * results may miss the uncommitted changes, and results read by the transaction must not be seen by other sessions.
+     */
+    private boolean isQueryCacheable(EntityMetadata<?> metadata) {
+        return queryCache.isEnabled() && secondLevelCache.getRegion(metadata) != null
+                && !session.isWrittenInTransaction(metadata.getTableName());
+    }
+
+    private <T> List<T> findCachedBy(EntityMetadata<T> metadata, String columnName, Object columnValue) {
+        if (!isQueryCacheable(metadata)) {
+            return null;
+        }
+        var ids = queryCache.get(metadata, columnName, columnValue);
+        if (ids == null) {
+            statistics.queryCacheMiss();
+            return null;
+        }
+        log.trace("Resolving {} cached id(s) of {}", ids.size(), metadata.getEntityType().getSimpleName());
+        statistics.queryCacheHit();
+        return findAllById(metadata.getEntityType(), ids, MissingEntityPolicy.SKIP);
+    }
+
+    private void cacheQueryResult(EntityMetadata<?> metadata, String columnName, Object columnValue,
+                                  List<?> entities, long timestamp) {
+        if (isQueryCacheable(metadata)) {
+            var ids = new ArrayList<>(entities.size());
+            for (var entity : entities) {
+                ids.add(metadata.getId(entity));
+            }
+            queryCache.put(metadata, columnName, columnValue, ids, timestamp);
+        }
+    }
+
+    /**
+     * Streams entities whose attribute equals a given value. A {@link AttributeKind#TO_ONE} attribute can be compared
+     * with either a related entity or its id.
+     */
+    public <T> Stream<T> streamBy(Class<T> entityType, String attributeName, Object value, StreamOptions options) {
+        var metadata = metamodel.getEntityMetadata(entityType);
+        var attribute = metadata.getAttribute(attributeName);
+        if (!attribute.isColumn()) {
+            throw new IllegalArgumentException("Attribute " + attribute + " is not mapped to a column");
+        }
+        var columnValue = attribute.toColumnValue(value);
+        var selectSql = metadata.getSelectByColumnSql(attribute.getColumnName());
+        return streamEntities(metadata, selectSql, true, options, statement -> statement.setObject(1, columnValue));
+    }
+
+    /**
+     * Streams entities selected by an arbitrary query. Its row hydrator is not cached, since the number of distinct
+     * queries is not bounded.
+     */
+    public <T> Stream<T> streamQuery(Class<T> entityType, String sql, StreamOptions options, Object... params) {
+        var metadata = metamodel.getEntityMetadata(entityType);
+        return streamEntities(metadata, sql, false, options, statement -> {
+            for (int i = 0; i < params.length; i++) {
+                statement.setObject(i + 1, params[i]);
+            }
+        });
+    }
+
+    /**
+     * Executes a query on a dedicated statement and returns a stream that reads its rows lazily. The statement is
+     * closed when the stream is closed or fully consumed. Row hydrators are cached only for the queries built by the
+     * metadata ({@code cacheHydrator}).
+     */
+    @SneakyThrows
+    private <T> Stream<T> streamEntities(EntityMetadata<T> metadata, String selectSql, boolean cacheHydrator,
+                                         StreamOptions options, StatementBinder binder) {
+        var selectStatement = session.prepareCursorStatement(selectSql, options.getFetchSize());
+        try {
+            binder.bind(selectStatement);
+            log.debug("SQL: {}", selectStatement);
+            var cacheTimestamp = secondLevelCache.currentTimestamp();
+            var event = new StatementExecutionEvent();
+            event.begin();
+            var resultSet = selectStatement.executeQuery();
+            statistics.statementsExecuted(StatementKind.SELECT, 1);
+            var hydrator = cacheHydrator ? metadata.getRowHydrator(selectSql, resultSet)
+                    : metadata.createRowHydrator(resultSet);
+            var cursor = new EntityCursor<>(hydrator, selectSql, selectStatement, resultSet, event, cacheTimestamp,
+                    options.isDetachEntities());
+            return StreamSupport.stream(cursor, false).onClose(cursor::close);
+        } catch (SQLException | RuntimeException e) {
+            session.closeCursorStatement(selectStatement);
+            throw e;
+        }
+    }
+
+    /**
+     * Removes an entity from the persistence context together with its uninitialized collections.
+     */
+    private void detach(EntityMetadata<?> metadata, Object entity) {
+        log.trace("Detaching entity {}", entity);
+        persistenceContext.removeEntity(entity);
+        var id = metadata.getId(entity);
+        for (var attribute : metadata.getToManyAttributes()) {
+            var pendingCollections = uninitializedCollections.get(attribute);
+            if (pendingCollections != null) {
+                pendingCollections.remove(id);
+            }
+        }
+    }
+
+    /**
+     * Finds entities by ids in the order of the ids. Entities are taken from the persistence context and the
+     * second-level cache first, and the rest are loaded with {@code WHERE id IN (...)} queries of up to
+     * {@code maxInListSize} ids each.
+     */
+    public <T> List<T> findAllById(Class<T> entityType, Collection<?> ids, MissingEntityPolicy missingEntityPolicy) {
+        log.trace("Selecting {} entities {} by ids", ids.size(), entityType.getSimpleName());
+        var metadata = metamodel.getEntityMetadata(entityType);
+        var entitiesById = new HashMap<Object, T>();
+        var missingIds = new LinkedHashSet<>();
+        for (var id : ids) {
+            var entity = persistenceContext.getEntity(new EntityKey<>(entityType, id));
+            if (entity != null) {
+                statistics.contextHit(entityType);
+            } else {
+                statistics.contextMiss(entityType);
+                var cachedState = getFromSecondLevelCache(metadata, id);
+                if (cachedState != null) {
+                    entity = createEntityFrom(metadata, cachedState);
                 }
             }
+            if (entity != null) {
+                entitiesById.put(id, entity);
+            } else {
+                missingIds.add(id);
+            }
+        }
+        if (!missingIds.isEmpty()) {
+            log.trace("Loading {} entities that are not cached", missingIds.size());
+            var idColumnName = metadata.getIdAttribute().getColumnName();
+            for (var entity : loadByColumnValues(metadata, idColumnName, missingIds, maxInListSize)) {
+                entitiesById.put(metadata.getId(entity), entity);
+            }
+        }
+        var list = new ArrayList<T>(ids.size());
+        for (var id : ids) {
+            var entity = entitiesById.get(id);
+            if (entity != null || missingEntityPolicy == MissingEntityPolicy.RETURN_NULL) {
+                list.add(entity);
+            }
         }
         return list;
     }
 
+    /**
+     * Loads entities by ids using {@code WHERE id IN (...)} queries of up to {@code batchFetchSize} ids each.
+     */
+    public <T> List<T> loadByIds(EntityMetadata<T> metadata, Collection<?> ids) {
+        log.trace("Loading {} entities {} by ids", ids.size(), metadata.getEntityType().getSimpleName());
+        return loadByColumnValues(metadata, metadata.getIdAttribute().getColumnName(), ids, batchFetchSize);
+    }
+
+    /**
+     * Loads entities using {@code WHERE column IN (...)} queries of up to {@code maxChunkSize} values each. The
+     * number of params is rounded up to a power of two (the last value is repeated), so only a few distinct statements
+     * are prepared and cached.
+     */
+    private <T> List<T> loadByColumnValues(EntityMetadata<T> metadata, String columnName, Collection<?> values,
+                                           int maxChunkSize) {
+        var valueList = List.copyOf(values);
+        var chunkSize = Math.max(1, maxChunkSize);
+        var list = new ArrayList<T>(valueList.size());
+        for (int from = 0; from < valueList.size(); from += chunkSize) {
+            var chunk = valueList.subList(from, Math.min(from + chunkSize, valueList.size()));
+            var paramCount = Math.max(chunk.size(), Math.min(Integer.highestOneBit(chunk.size() - 1) << 1, chunkSize));
+            var selectSql = metadata.getSelectByColumnValuesSql(columnName, paramCount);
+            list.addAll(loadEntities(metadata, selectSql, statement -> {
+                var paramIndex = 1;
+                for (var value : chunk) {
+                    statement.setObject(paramIndex++, value);
+                }
+                var lastValue = chunk.get(chunk.size() - 1);
+                while (paramIndex <= paramCount) {
+                    statement.setObject(paramIndex++, lastValue);
+                }
+            }));
+        }
+        return list;
+    }
+
+    /**
+     * Executes a query and turns its rows into managed entities. Row states are read first and the result set is
+     * closed before the entities are created, so resolving relations can reuse cached statements.
+     */
     @SneakyThrows
-    public <T> T findOneBy(Class<T> entityType, Field field, Object columnValue) {
-        var result = findAllBy(entityType, field, columnValue);
+    private <T> List<T> loadEntities(EntityMetadata<T> metadata, String selectSql, StatementBinder binder) {
+        var selectStatement = session.prepareStatement(selectSql);
+        binder.bind(selectStatement);
+        log.debug("SQL: {}", selectStatement);
+        statistics.statementsExecuted(StatementKind.SELECT, 1);
+        var cacheTimestamp = secondLevelCache.currentTimestamp();
+        var event = new StatementExecutionEvent();
+        event.begin();
+        var states = new ArrayList<Object[]>();
+        try (var resultSet = selectStatement.executeQuery()) {
+            var hydrator = metadata.getRowHydrator(selectSql, resultSet);
+            while (resultSet.next()) {
+                states.add(hydrator.readState(resultSet));
+            }
+        }
+        commitStatementEvent(event, selectSql, StatementKind.SELECT, metadata, 1, states.size());
+        putToSecondLevelCache(metadata, states, cacheTimestamp);
+        if (states.size() > 1) {
+            batchLoadToOneReferences(metadata, states);
+        }
+        var list = new ArrayList<T>(states.size());
+        for (var state : states) {
+            list.add(createEntityFrom(metadata, state));
+        }
+        return list;
+    }
+
+    /**
+     * Returns a copy of the cached state of an entity, or {@code null} if the entity type is not cached.
+     */
+    private Object[] getFromSecondLevelCache(EntityMetadata<?> metadata, Object id) {
+        var cacheRegion = secondLevelCache.getRegion(metadata);
+        if (cacheRegion == null) {
+            return null;
+        }
+        var cachedState = cacheRegion.get(id);
+        if (cachedState != null) {
+            statistics.secondLevelCacheHit(metadata.getEntityType());
+        } else {
+            statistics.secondLevelCacheMiss(metadata.getEntityType());
+        }
+        return cachedState;
+    }
+
+    /**
+     * Caches states read from the database after {@code timestamp}. Nothing is cached for a table written in the current
+     * transaction, since the rows may hold uncommitted changes that must not be seen by other sessions.
+     */
+    private void putToSecondLevelCache(EntityMetadata<?> metadata, Collection<Object[]> states, long timestamp) {
+        var cacheRegion = secondLevelCache.getRegion(metadata);
+        if (cacheRegion != null && !session.isWrittenInTransaction(metadata.getTableName())) {
+            states.forEach(state -> cacheRegion.put(state[metadata.getIdIndex()], state, timestamp));
+        }
+    }
+
+    /**
+     * Loads the related entities of {@link AttributeKind#TO_ONE} attributes for all the rows at once, so that
+     * {@link #createEntityFrom(EntityMetadata, Object[])} finds them in the context instead of issuing a query per row.
+     */
+    private void batchLoadToOneReferences(EntityMetadata<?> metadata, List<Object[]> states) {
+        if (batchFetchSize <= 1) {
+            return;
+        }
+        var columnAttributes = metadata.getColumnAttributes();
+        for (int i = 0; i < columnAttributes.size(); i++) {
+            var attribute = columnAttributes.get(i);
+            if (attribute.getKind() != AttributeKind.TO_ONE) {
+                continue;
+            }
+            var targetMetadata = metamodel.getEntityMetadata(attribute.getTargetEntityType());
+            var targetCacheRegion = secondLevelCache.getRegion(targetMetadata);
+            var missingIds = new LinkedHashSet<>();
+            for (var state : states) {
+                var id = state[i];
+                if (id != null && !missingIds.contains(id)
+                        && persistenceContext.getEntity(EntityKey.of(targetMetadata.getEntityType(), id)) == null
+                        && (targetCacheRegion == null || targetCacheRegion.get(id) == null)) {
+                    missingIds.add(id);
+                }
+            }
+            if (missingIds.size() > 1) {
+                log.trace("Batch loading {} related entities for {}", missingIds.size(), attribute);
+                loadByIds(targetMetadata, missingIds);
+            }
+        }
+    }
+
+    @SneakyThrows
+    public <T> T findOneBy(Class<T> entityType, String columnName, Object columnValue) {
+        var metadata = metamodel.getEntityMetadata(entityType);
+        var selectSql = metadata.getSelectByColumnSql(columnName);
+        var result = loadEntities(metadata, selectSql, statement -> statement.setObject(1, columnValue));
         if (result.size() != 1) {
             throw new IllegalStateException("The result must contain exactly one row");
         }
         return result.get(0);
     }
 
-    @SneakyThrows
-    private <T> T createEntityFrom(Class<T> entityType, ResultSet resultSet) {
-        log.trace("Creating entity {} from the result set", entityType.getSimpleName());
-        var constructor = entityType.getConstructor();
-        var entity = constructor.newInstance();
+    private <T> T createEntityFrom(EntityMetadata<T> metadata, Object[] state) {
+        var entityType = metadata.getEntityType();
+        log.trace("Creating entity {} from the hydrated state", entityType.getSimpleName());
+        var entityId = state[metadata.getIdIndex()];
+        var managedEntity = persistenceContext.getEntity(new EntityKey<>(entityType, entityId));
+        if (managedEntity != null) {
+            log.trace("Entity is already in the context. Returning cached object {}", managedEntity);
+            return managedEntity;
+        }
+        statistics.entityLoaded(entityType);
+        var entity = metadata.newInstance();
         log.trace("Processing entity fields");
-        for (var field : entityType.getDeclaredFields()) {
-            field.setAccessible(true);
-            if (isSimpleColumnField(field)) {
-                log.trace("Processing simple field {}", field.getName());
-                var columnName = resolveColumnName(field);
-                log.trace("Resolved column name '{}'", columnName);
-                var columnValue = resultSet.getObject(columnName);
-                log.trace("Fetched column value '{}' from the result set", columnValue);
-                log.trace("Setting value '{}' to the entity field {}", columnValue, field.getName());
-                field.set(entity, columnValue);
-            } else if (isEntityField(field)) {
-                log.trace("Processing entity field {}", field.getName());
-                var relatedEntityType = field.getType();
-                var joinColumnName = resolveColumnName(field);
-                log.trace("Resolved joining column name '{}'", joinColumnName);
-                var joinColumnValue = resultSet.getObject(joinColumnName);
-                log.trace("Fetched joining column value '{}' from the result set", joinColumnValue);
-                var relatedEntity = findById(relatedEntityType, joinColumnValue);
-                log.trace("Setting related entity {} to the field {}", relatedEntity, field.getName());
-                field.set(entity, relatedEntity);
-            } else if (isEntityCollectionField(field)) {// setting lazy list for toMany relation
-                log.trace("Processing entity collection field {}", field.getName());
-                var relatedEntityType = getEntityCollectionElementType(field);
-                log.trace("Resolved related entity collection element type -> {}", relatedEntityType.getSimpleName());
-                var entityFieldInRelatedEntity = getRelatedEntityField(entityType, relatedEntityType);
-                log.trace("Resolved entity field on the opposite side -> {}", entityFieldInRelatedEntity.getName());
-                var entityId = getId(entity);
-                log.trace("Creating a list that will lazily fetch {} elements for {} with id = {}",
-                        relatedEntityType.getSimpleName(), entityType.getSimpleName(), entityId);
-                var list = createLazyList(relatedEntityType, entityFieldInRelatedEntity, entityId);
-                log.trace("Setting lazy list of {} to the entity field {}", relatedEntityType.getSimpleName(), field.getName());
-                field.set(entity, list);
-            }
-        }
-        return persistenceContext.manageEntity(entity);
-    }
-
-    private <T> LazyList<T> createLazyList(Class<T> relatedEntityType, Field entityFieldInRelatedEntity, Object entityId) {
+        var columnAttributes = metadata.getColumnAttributes();
+        for (int i = 0; i < state.length; i++) {
+            var attribute = columnAttributes.get(i);
+            if (attribute.getKind() == AttributeKind.BASIC) {
+                log.trace("Setting value '{}' to the entity field {}", state[i], attribute.getName());
+                attribute.setValue(entity, state[i]);
+            } else {
+                log.trace("Processing entity field {} with joining column value '{}'", attribute.getName(), state[i]);
+                var relatedEntity = state[i] != null ? findById(attribute.getTargetEntityType(), state[i]) : null;
+                log.trace("Setting related entity {} to the field {}", relatedEntity, attribute.getName());
+                attribute.setValue(entity, relatedEntity);
+            }
+        }
+        for (var attribute : metadata.getToManyAttributes()) {// setting lazy list for toMany relation
+            log.trace("Creating a list that will lazily fetch {} elements for {} with id = {}",
+                    attribute.getTargetEntityType().getSimpleName(), entityType.getSimpleName(), entityId);
+            var list = createLazyList(attribute, entityId);
+            attribute.setValue(entity, list);
+        }
+        return persistenceContext.addEntity(entity, state);
+    }
+
+    /**
+     * Creates a lazy collection and registers it as uninitialized, so it can be loaded together with other collections
+     * of the same role.
+     */
+    private <T> LazyList<T> createLazyList(EntityAttribute collectionAttribute, Object ownerId) {
         Supplier<List<T>> listSupplier = () -> {
-            session.verifyIsOpen();
-            return findAllBy(relatedEntityType, entityFieldInRelatedEntity, entityId);
+            session.verifyIsAccessibleForLazyLoading();
+            return loadCollection(collectionAttribute, ownerId);
         };
-        return new LazyList<>(listSupplier);
+        var list = new LazyList<>(listSupplier);
+        uninitializedCollections.computeIfAbsent(collectionAttribute, a -> new LinkedHashMap<>()).put(ownerId, list);
+        return list;
+    }
+
+    /**
+     * Loads elements of a collection. Up to {@code batchFetchSize - 1} other uninitialized collections of the same role
+     * are loaded with the same {@code WHERE join_column IN (...)} query and initialized as well.
+     */
+    @SuppressWarnings("unchecked")
+    private <T> List<T> loadCollection(EntityAttribute collectionAttribute, Object ownerId) {
+        var elementType = (Class<T>) collectionAttribute.getTargetEntityType();
+        var joinColumnName = collectionAttribute.getMappedByColumnName();
+        var pendingCollections = uninitializedCollections.get(collectionAttribute);
+        if (pendingCollections != null) {
+            pendingCollections.remove(ownerId);
+        }
+        var event = new LazyListInitializationEvent();
+        event.begin();
+        if (batchFetchSize <= 1 || pendingCollections == null || pendingCollections.isEmpty()) {
+            statistics.lazyListsInitialized(1);
+            var elements = findAllBy(elementType, joinColumnName, ownerId);
+            commitLazyListEvent(event, collectionAttribute, ownerId, elements.size(), 0);
+            return elements;
+        }
+        var elementMetadata = metamodel.getEntityMetadata(elementType);
+        var cachedElements = findCachedBy(elementMetadata, joinColumnName, ownerId);
+        if (cachedElements != null) {
+            statistics.lazyListsInitialized(1);
+            commitLazyListEvent(event, collectionAttribute, ownerId, cachedElements.size(), 0);
+            return cachedElements;
+        }
+        var collectionsByOwnerId = new LinkedHashMap<Object, LazyList<T>>();
+        var iterator = pendingCollections.entrySet().iterator();
+        while (collectionsByOwnerId.size() < batchFetchSize - 1 && iterator.hasNext()) {
+            var pendingCollection = iterator.next();
+            if (!pendingCollection.getValue().isInitialized()) {
+                collectionsByOwnerId.put(pendingCollection.getKey(), (LazyList<T>) pendingCollection.getValue());
+            }
+            iterator.remove();
+        }
+        var ownerIds = new ArrayList<>();
+        ownerIds.add(ownerId);
+        ownerIds.addAll(collectionsByOwnerId.keySet());
+        log.trace("Batch loading {} collections {}", ownerIds.size(), collectionAttribute);
+        statistics.lazyListsInitialized(ownerIds.size());
+        var timestamp = queryCache.isEnabled() ? queryCache.nextTimestamp() : 0L;
+        var ownerAttribute = elementMetadata.getAttribute(collectionAttribute.getMappedByAttributeName());
+        var elementsByOwnerId = new HashMap<Object, List<T>>();
+        for (var element : loadByColumnValues(elementMetadata, joinColumnName, ownerIds, batchFetchSize)) {
+            var elementOwnerId = ownerAttribute.getColumnValue(element);
+            elementsByOwnerId.computeIfAbsent(elementOwnerId, id -> new ArrayList<>()).add(element);
+        }
+        for (var id : ownerIds) {
+            var ownerElements = elementsByOwnerId.computeIfAbsent(id, i -> new ArrayList<>());
+            cacheQueryResult(elementMetadata, joinColumnName, id, ownerElements, timestamp);
+        }
+        collectionsByOwnerId.forEach((id, collection) -> collection.initialize(elementsByOwnerId.get(id)));
+        var elements = elementsByOwnerId.get(ownerId);
+        commitLazyListEvent(event, collectionAttribute, ownerId, elements.size(), collectionsByOwnerId.size());
+        return elements;
     }
 
+    private void commitLazyListEvent(LazyListInitializationEvent event, EntityAttribute collectionAttribute,
+                                     Object ownerId, int size, int batchedCollectionCount) {
+        if (event.shouldCommit()) {
+            event.ownerType = collectionAttribute.getField().getDeclaringClass();
+            event.ownerId = String.valueOf(ownerId);
+            event.role = collectionAttribute.getName();
+            event.size = size;
+            event.batchedCollectionCount = batchedCollectionCount;
+            event.commit();
+        }
+    }
+
+    /**
+     * Executes a projection query and maps its rows without creating entities, so nothing is added to the persistence
+     * context. The statement is not taken from the session statement cache, as every combination of conditions,
+     * ordering and limit is a distinct statement that would evict the hot ones.
+     */
     @SneakyThrows
-    public <T> T update(T entity) {
-        log.trace("Updating entity {}", entity);
-        var entityType = entity.getClass();
-        try (var connection = dataSource.getConnection()) {
-            var tableName = resolveTableName(entityType);
-            log.trace("Resolved table name -> {}", tableName);
-            var updatableColumns = commaSeparatedUpdatableColumnSetters(entityType);
-            var idColumn = resolveIdColumnName(entityType) + " = ?";
-            var updateQuery = String.format(UPDATE_TABLE_SET_VALUES_BY_COLUMN_TEMPLATE, tableName, updatableColumns, idColumn);
-            log.trace("Preparing update statement: {}", updateQuery);
-            try (var updateStatement = connection.prepareStatement(updateQuery)) {
-                fillUpdateStatementParams(updateStatement, entity);
-                var idParamIndex = getUpdatableFields(entityType).length + 1;
-                updateStatement.setObject(idParamIndex, getId(entity));
-                log.debug("SQL: " + updateStatement);
-                updateStatement.executeUpdate();
+    public <R> List<R> project(ProjectionMapping<R> mapping, String sql, List<Object> params) {
+        var event = new StatementExecutionEvent();
+        var results = new ArrayList<R>();
+        try (var statement = session.getConnection().prepareStatement(sql)) {
+            for (int i = 0; i < params.size(); i++) {
+                statement.setObject(i + 1, params.get(i));
+            }
+            log.debug("SQL: {}", statement);
+            statistics.statementsExecuted(StatementKind.SELECT, 1);
+            event.begin();
+            try (var resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    results.add(mapping.readRow(resultSet));
+                }
             }
         }
+        commitStatementEvent(event, sql, StatementKind.SELECT, mapping.getMetadata(), 1, results.size());
+        return results;
+    }
+
+    /**
+     * Executes a set-based statement for entities of a given type and returns the number of affected rows. All the
+     * managed entities of the type are detached, as their state may no longer match the database.
+     * <p>
+     * The statement is not taken from the session statement cache, as one-off statements would evict the hot ones.
+     */
+    @SneakyThrows
+    public int executeBulk(EntityMetadata<?> metadata, StatementKind kind, String sql, List<Object> params) {
+        int rowCount;
+        var event = new StatementExecutionEvent();
+        try (var statement = session.getConnection().prepareStatement(sql)) {
+            for (int i = 0; i < params.size(); i++) {
+                statement.setObject(i + 1, params.get(i));
+            }
+            log.debug("SQL: {}", statement);
+            event.begin();
+            rowCount = statement.executeUpdate();
+        }
+        commitStatementEvent(event, sql, kind, metadata, 1, rowCount);
+        statistics.statementsExecuted(kind, 1);
+        if (kind == StatementKind.DELETE) {
+            statistics.entitiesDeleted(metadata.getEntityType(), rowCount);
+        } else {
+            statistics.entitiesUpdated(metadata.getEntityType(), rowCount);
+        }
+        for (var entity : persistenceContext.getEntities(metadata.getEntityType())) {
+            detach(metadata, entity);
+        }
+        return rowCount;
+    }
+
+    /**
+     * Forgets all the uninitialized collections. It is called when the persistence context is cleared.
+     */
+    public void clear() {
+        uninitializedCollections.clear();
+    }
+
+    public <T> T update(T entity) {
+        updateAll(List.of(entity));
         return entity;
     }
 
+    /**
+     * Updates all the updatable columns of entities of the same type using a single statement. Rows are sent as JDBC
+     * batches.
+     */
+    public void updateAll(List<?> entities) {
+        updateAll(entities, metamodel.getEntityMetadataOf(entities.get(0)).getUpdatableAttributes());
+    }
+
+    /**
+     * Updates given attributes of entities of the same type using a single statement. Rows are sent as JDBC batches.
+     */
     @SneakyThrows
+    public void updateAll(List<?> entities, List<EntityAttribute> attributes) {
+        log.trace("Updating {} of {} entities", attributes, entities.size());
+        var metadata = metamodel.getEntityMetadataOf(entities.get(0));
+        executeBatched(metadata.getUpdateSql(attributes), StatementKind.UPDATE, metadata, entities,
+                (statement, entity) -> {
+                    setParamsFromAttributes(statement, entity, attributes);
+                    setParam(statement, attributes.size() + 1, metadata.getId(entity));
+                });
+        statistics.entitiesUpdated(metadata.getEntityType(), entities.size());
+        evictFromSecondLevelCache(metadata, entities);
+    }
+
     public <T> T delete(T entity) {
-        log.trace("Deleting entity {}", entity);
-        var entityType = entity.getClass();
-        try (var connection = dataSource.getConnection()) {
-            var tableName = resolveTableName(entityType);
-            log.trace("Resolved table name -> {}", tableName);
-            var idColumnName = resolveIdColumnName(entityType);
-            var deleteQuery = String.format(DELETE_FROM_TABLE_BY_COLUMN, tableName, idColumnName);
-            log.trace("Preparing delete statement: {}", deleteQuery);
-            try (var deleteStatement = connection.prepareStatement(deleteQuery)) {
-                Object id = getId(entity);
-                deleteStatement.setObject(1, id);
-                log.debug("SQL: " + deleteStatement);
-                deleteStatement.executeUpdate();
+        deleteAll(List.of(entity));
+        return entity;
+    }
+
+    /**
+     * Deletes entities of the same type using a single statement. Rows are sent as JDBC batches.
+     */
+    @SneakyThrows
+    public void deleteAll(List<?> entities) {
+        log.trace("Deleting {} entities", entities.size());
+        var metadata = metamodel.getEntityMetadataOf(entities.get(0));
+        executeBatched(metadata.getDeleteSql(), StatementKind.DELETE, metadata, entities,
+                (statement, entity) -> setParam(statement, 1, metadata.getId(entity)));
+        statistics.entitiesDeleted(metadata.getEntityType(), entities.size());
+        evictFromSecondLevelCache(metadata, entities);
+    }
+
+    private void evictFromSecondLevelCache(EntityMetadata<?> metadata, List<?> entities) {
+        if (secondLevelCache.getRegion(metadata) != null) {
+            for (var entity : entities) {
+                secondLevelCache.evict(metadata, metadata.getId(entity));
             }
         }
-        return entity;
     }
 
+    /**
+     * Executes a statement for each entity. A single entity is executed as a regular update, several entities are
+     * executed as JDBC batches of up to {@code batchSize} rows.
+     */
     @SneakyThrows
-    private <T> void fillInsertStatementParams(PreparedStatement insertStatement, T entity) {
-        var insertableFields = getInsertableFields(entity.getClass());
-        setParamsFromFields(insertStatement, entity, insertableFields);
+    private void executeBatched(String sql, StatementKind kind, EntityMetadata<?> metadata, List<?> entities,
+                                BiConsumer<PreparedStatement, Object> paramsBinder) {
+        var statement = session.prepareStatement(sql);
+        if (entities.size() == 1 || batchSize <= 1) {
+            for (var entity : entities) {
+                paramsBinder.accept(statement, entity);
+                log.debug("SQL: {}", statement);
+                var event = new StatementExecutionEvent();
+                event.begin();
+                var rowCount = statement.executeUpdate();
+                commitStatementEvent(event, sql, kind, metadata, 1, rowCount);
+                statistics.statementsExecuted(kind, 1);
+            }
+            return;
+        }
+        var batchedRows = 0;
+        try {
+            for (var entity : entities) {
+                paramsBinder.accept(statement, entity);
+                log.debug("SQL: {}", statement);
+                statement.addBatch();
+                if (++batchedRows == batchSize) {
+                    executeBatch(statement, sql, kind, metadata, batchedRows);
+                    batchedRows = 0;
+                }
+            }
+            if (batchedRows > 0) {
+                executeBatch(statement, sql, kind, metadata, batchedRows);
+            }
+        } catch (SQLException | RuntimeException e) {
+            statement.clearBatch(); // the statement is cached, so it must not keep the rows of a failed batch
+            throw e;
+        }
+    }
+
+    /**
+     * Turns rows of an open result set into entities one by one as they are consumed
+     */
+    private class EntityCursor<T> extends Spliterators.AbstractSpliterator<T> {
+        private final RowHydrator<T> hydrator;
+        private final EntityMetadata<T> metadata;
+        private final String sql;
+        private final PreparedStatement statement;
+        private final ResultSet resultSet;
+        /**
+         * An event that lasts until the cursor is closed, as the statement is executed while its rows are fetched
+         */
+        private final StatementExecutionEvent event;
+        /**
+         * A second-level cache timestamp taken before the statement was executed
+         */
+        private final long cacheTimestamp;
+        private final boolean detachEntities;
+        private long rowCount;
+        private boolean closed;
+
+        private EntityCursor(RowHydrator<T> hydrator, String sql, PreparedStatement statement, ResultSet resultSet,
+                             StatementExecutionEvent event, long cacheTimestamp, boolean detachEntities) {
+            super(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL);
+            this.hydrator = hydrator;
+            this.metadata = hydrator.getMetadata();
+            this.sql = sql;
+            this.statement = statement;
+            this.resultSet = resultSet;
+            this.event = event;
+            this.cacheTimestamp = cacheTimestamp;
+            this.detachEntities = detachEntities;
+        }
+
+        @Override
+        @SneakyThrows
+        public boolean tryAdvance(Consumer<? super T> action) {
+            if (closed) {
+                return false;
+            }
+            session.verifyIsOpen();
+            if (!resultSet.next()) {
+                close();
+                return false;
+            }
+            rowCount++;
+            var state = hydrator.readState(resultSet);
+            putToSecondLevelCache(metadata, List.<Object[]>of(state), cacheTimestamp);
+            var wasManaged = persistenceContext.getEntity(EntityKey.of(metadata.getEntityType(),
+                    state[metadata.getIdIndex()])) != null;
+            var entity = createEntityFrom(metadata, state);
+            action.accept(entity);
+            if (detachEntities && !wasManaged) {
+                detach(metadata, entity);
+            }
+            return true;
+        }
+
+        @SneakyThrows
+        private void close() {
+            if (!closed) {
+                closed = true;
+                commitStatementEvent(event, sql, StatementKind.SELECT, metadata, 1, rowCount);
+                try {
+                    resultSet.close();
+                } finally {
+                    session.closeCursorStatement(statement);
+                }
+            }
+        }
+    }
+
+    private void executeBatch(PreparedStatement statement, String sql, StatementKind kind, EntityMetadata<?> metadata,
+                              int batchedRows) throws SQLException {
+        log.trace("Executing batch of {} statements", batchedRows);
+        var event = new StatementExecutionEvent();
+        event.begin();
+        var rowCounts = statement.executeBatch();
+        if (event.shouldCommit()) {
+            var rowCount = 0L;
+            for (var count : rowCounts) {
+                rowCount += Math.max(count, 0); // SUCCESS_NO_INFO is negative
+            }
+            commitStatementEvent(event, sql, kind, metadata, batchedRows, rowCount);
+        }
+        statistics.statementsExecuted(kind, batchedRows);
+        statistics.batchExecuted();
+    }
+
+    /**
+     * Fills and commits a statement event if it is enabled and exceeds its threshold. The event must be begun before
+     * the statement execution.
+     */
+    private void commitStatementEvent(StatementExecutionEvent event, String sql, StatementKind kind,
+                                      EntityMetadata<?> metadata, int batchSize, long rowCount) {
+        if (event.shouldCommit()) {
+            event.sql = sql;
+            event.kind = kind.name();
+            event.entityType = metadata.getEntityType();
+            event.bindCount = StatementExecutionEvent.countParameters(sql);
+            event.batchSize = batchSize;
+            event.rowCount = rowCount;
+            event.commit();
+        }
+    }
+
+    @FunctionalInterface
+    private interface StatementBinder {
+        void bind(PreparedStatement statement) throws SQLException;
     }
 
     @SneakyThrows
-    private <T> void fillUpdateStatementParams(PreparedStatement updateStatement, T entity) {
-        var updatableFields = getUpdatableFields(entity.getClass());
-        setParamsFromFields(updateStatement, entity, updatableFields);
+    private void setParam(PreparedStatement statement, int index, Object value) {
+        statement.setObject(index, value);
     }
 
     @SneakyThrows
-    private void setParamsFromFields(PreparedStatement statement, Object entity, Field[] fields) {
-        for (int i = 0; i < fields.length; i++) {
-            var field = fields[i];
-            field.setAccessible(true);
-            var columnValue = field.get(entity);
+    private void setParamsFromAttributes(PreparedStatement statement, Object entity, List<EntityAttribute> attributes) {
+        for (int i = 0; i < attributes.size(); i++) {
+            var columnValue = attributes.get(i).getColumnValue(entity);
             statement.setObject(i + 1, columnValue);
         }
     }
@@ -1,24 +1,49 @@
 package bibernate.session.impl;
 
+import bibernate.metamodel.EntityAttribute;
+import bibernate.metamodel.EntityMetadata;
+import bibernate.metamodel.Metamodel;
+import bibernate.tracking.DirtyTrackable;
 import bibernate.util.EntityKey;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.log4j.Log4j2;
 
 import java.util.*;
-
-import static bibernate.util.EntityUtil.entityToSnapshot;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * A context of entities that acts as a 1st level cache. It stores entity objects as well, and their initial snapshots.
+ * <p>
+ * Entities that implement {@link DirtyTrackable} report their changes themselves, so dirty checking visits only the
+ * ones that have changed. All the other entities are compared with their snapshots on every check.
  */
 @Log4j2
+@RequiredArgsConstructor
 public class PersistenceContext {
+    private final Metamodel metamodel;
+    /**
+     * Min number of entities that are compared with their snapshots in parallel. Values less than 1 disable it
+     */
+    private final int parallelDirtyCheckThreshold;
+    /**
+     * A pool that compares snapshots in parallel
+     */
+    private final ForkJoinPool dirtyCheckPool;
     private final Map<EntityKey<?>, Object> entitiesByKey = new HashMap<>();
     private final Map<EntityKey<?>, Object[]> entitiesSnapshotByKey = new HashMap<>();
+    /**
+     * Keys of entities that must be compared with their snapshots
+     */
+    private final Set<EntityKey<?>> untrackedEntityKeys = new LinkedHashSet<>();
+    /**
+     * Keys of {@link DirtyTrackable} entities that have recorded changes since they were added
+     */
+    private final Set<EntityKey<?>> changedTrackedEntityKeys = new LinkedHashSet<>();
 
     @SuppressWarnings("unchecked")
     public <T> T manageEntity(T entity) {
         log.trace("Checking entity {}", entity);
-        var key = EntityKey.valueOf(entity);
+        var key = metamodel.getEntityMetadataOf(entity).keyOf(entity);
         var cachedEntity = entitiesByKey.get(key);
         if (cachedEntity != null) {
             log.trace("Entity is already in the context. Returning cached object {}", cachedEntity);
@@ -36,39 +61,168 @@ public class PersistenceContext {
     }
 
     public <T> T addEntity(T entity) {
+        return addEntity(entity, metamodel.getEntityMetadataOf(entity).snapshot(entity));
+    }
+
+    /**
+     * Adds an entity with an already known snapshot, e.g. the state it has just been hydrated from.
+     */
+    public <T> T addEntity(T entity, Object[] snapshot) {
         log.trace("Adding entity {} to the PersistenceContext", entity);
-        var key = EntityKey.valueOf(entity);
+        var key = metamodel.getEntityMetadataOf(entity).keyOf(entity);
         entitiesByKey.put(key, entity);
-        entitiesSnapshotByKey.put(key, entityToSnapshot(entity));
+        entitiesSnapshotByKey.put(key, snapshot);
+        if (entity instanceof DirtyTrackable trackable) {
+            var tracker = trackable.getDirtyTracker();
+            tracker.clear();
+            tracker.setFirstChangeListener(() -> changedTrackedEntityKeys.add(key));
+            changedTrackedEntityKeys.remove(key);
+        } else {
+            untrackedEntityKeys.add(key);
+        }
         return entity;
     }
 
+    public <T> void removeEntity(T entity) {
+        log.trace("Removing entity {} from the PersistenceContext", entity);
+        var key = metamodel.getEntityMetadataOf(entity).keyOf(entity);
+        entitiesByKey.remove(key);
+        entitiesSnapshotByKey.remove(key);
+        untrackedEntityKeys.remove(key);
+        changedTrackedEntityKeys.remove(key);
+        if (entity instanceof DirtyTrackable trackable) {
+            trackable.getDirtyTracker().setFirstChangeListener(null);
+        }
+    }
+
+    /**
+     * Returns all the managed entities of a given type.
+     */
+    public <T> List<T> getEntities(Class<T> entityType) {
+        var entities = new ArrayList<T>();
+        entitiesByKey.forEach((key, entity) -> {
+            if (key.entityType() == entityType) {
+                entities.add(entityType.cast(entity));
+            }
+        });
+        return entities;
+    }
+
     public <T> boolean contains(T entity) {
         log.trace("Checking if entity {} exists in the context", entity);
-        var key = EntityKey.valueOf(entity);
+        var key = metamodel.getEntityMetadataOf(entity).keyOf(entity);
         return entitiesByKey.containsKey(key);
     }
 
-    public List<?> getDirtyEntities() {
+    /**
+     * Compares entities with their initial snapshots and returns the changed ones with the attributes that differ.
+     * When the number of entities to compare reaches {@code parallelDirtyCheckThreshold}, they are compared in
+     * parallel on the {@code dirtyCheckPool}: the parallel stream is submitted to the pool, so its subtasks run there
+     * rather than on the common pool. The result keeps the order of the entities either way.
+     */
+    public List<DirtyEntity> getDirtyEntities() {
         log.trace("Looking for dirty entities (the ones that have changed)");
-        var list = new ArrayList<>();
-        for (var entityEntry : entitiesByKey.entrySet()) {
-            var currentEntity = entityEntry.getValue();
-            var currentEntitySnapshot = entityToSnapshot(currentEntity);
-            var initialSnapshot = entitiesSnapshotByKey.get(entityEntry.getKey());
-            log.trace("Comparing snapshots: {} <=> {}", initialSnapshot, currentEntitySnapshot);
-            if (!Arrays.equals(currentEntitySnapshot, initialSnapshot)) {
-                log.trace("Found dirty entity {}", currentEntity);
-                log.trace("Initial snapshot {}", initialSnapshot);
-                list.add(currentEntity);
+        var list = new ArrayList<DirtyEntity>();
+        if (parallelDirtyCheckThreshold > 0 && untrackedEntityKeys.size() >= parallelDirtyCheckThreshold) {
+            log.trace("Comparing snapshots of {} entities in parallel", untrackedEntityKeys.size());
+            var keys = List.copyOf(untrackedEntityKeys);
+            list.addAll(dirtyCheckPool.submit(() -> keys.parallelStream()
+                    .map(this::compareWithSnapshot)
+                    .filter(Objects::nonNull)
+                    .toList()).join());
+        } else {
+            for (var key : untrackedEntityKeys) {
+                var dirtyEntity = compareWithSnapshot(key);
+                if (dirtyEntity != null) {
+                    list.add(dirtyEntity);
+                }
+            }
+        }
+        log.trace("Checking {} self-tracked entities with recorded changes", changedTrackedEntityKeys.size());
+        var iterator = changedTrackedEntityKeys.iterator();
+        while (iterator.hasNext()) {
+            var key = iterator.next();
+            var currentEntity = entitiesByKey.get(key);
+            var metadata = metamodel.getEntityMetadata(key.entityType());
+            var dirtyAttributes = findTrackedDirtyAttributes(metadata, currentEntity, entitiesSnapshotByKey.get(key));
+            if (!dirtyAttributes.isEmpty()) {
+                log.trace("Found dirty entity {} with changed attributes {}", currentEntity, dirtyAttributes);
+                list.add(new DirtyEntity(currentEntity, dirtyAttributes));
+            } else {
+                log.trace("Entity {} has recorded changes, but its state is unchanged", currentEntity);
+                ((DirtyTrackable) currentEntity).getDirtyTracker().clear();
+                iterator.remove();
             }
         }
         return list;
     }
 
+    /**
+     * Compares only the attributes recorded by the {@link bibernate.tracking.DirtyTracker}, so setting the same value
+     * again does not make the entity dirty.
+     */
+    private List<EntityAttribute> findTrackedDirtyAttributes(EntityMetadata<?> metadata, Object entity,
+                                                             Object[] initialSnapshot) {
+        var tracker = ((DirtyTrackable) entity).getDirtyTracker();
+        List<EntityAttribute> dirtyAttributes = List.of();
+        var columnAttributes = metadata.getColumnAttributes();
+        for (int i = 0; i < columnAttributes.size(); i++) {
+            var attribute = columnAttributes.get(i);
+            if (i != metadata.getIdIndex() && tracker.isDirty(attribute.getName())
+                    && !Objects.equals(initialSnapshot[i], attribute.getColumnValue(entity))) {
+                if (dirtyAttributes.isEmpty()) {
+                    dirtyAttributes = new ArrayList<>();
+                }
+                dirtyAttributes.add(attribute);
+            }
+        }
+        return dirtyAttributes;
+    }
+
+    /**
+     * Compares an entity with its snapshot. It only reads the context, so it can be called from several threads.
+     *
+     * @return the dirty entity or {@code null} if it has not changed
+     */
+    private DirtyEntity compareWithSnapshot(EntityKey<?> key) {
+        var currentEntity = entitiesByKey.get(key);
+        var metadata = metamodel.getEntityMetadata(key.entityType());
+        var currentEntitySnapshot = metadata.snapshot(currentEntity);
+        var initialSnapshot = entitiesSnapshotByKey.get(key);
+        log.trace("Comparing snapshots: {} <=> {}", initialSnapshot, currentEntitySnapshot);
+        var dirtyAttributes = findDirtyAttributes(metadata, initialSnapshot, currentEntitySnapshot);
+        if (dirtyAttributes.isEmpty()) {
+            return null;
+        }
+        log.trace("Found dirty entity {} with changed attributes {}", currentEntity, dirtyAttributes);
+        return new DirtyEntity(currentEntity, dirtyAttributes);
+    }
+
+    private List<EntityAttribute> findDirtyAttributes(EntityMetadata<?> metadata, Object[] initialSnapshot,
+                                                      Object[] currentSnapshot) {
+        List<EntityAttribute> dirtyAttributes = List.of();
+        var columnAttributes = metadata.getColumnAttributes();
+        for (int i = 0; i < currentSnapshot.length; i++) {
+            if (i != metadata.getIdIndex() && !Objects.equals(initialSnapshot[i], currentSnapshot[i])) {
+                if (dirtyAttributes.isEmpty()) {
+                    dirtyAttributes = new ArrayList<>();
+                }
+                dirtyAttributes.add(columnAttributes.get(i));
+            }
+        }
+        return dirtyAttributes;
+    }
+
     public void clear() {
         log.trace("Clearing persistence context");
+        for (var entity : entitiesByKey.values()) {
+            if (entity instanceof DirtyTrackable trackable) {
+                trackable.getDirtyTracker().setFirstChangeListener(null);
+            }
+        }
         entitiesByKey.clear();
         entitiesSnapshotByKey.clear();
+        untrackedEntityKeys.clear();
+        changedTrackedEntityKeys.clear();
     }
 }
@@ -0,0 +1,356 @@
+package bibernate.session.impl;
+
+import bibernate.session.Settings;
+import lombok.extern.log4j.Log4j2;
+
+import javax.sql.DataSource;
+import java.io.PrintWriter;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.SQLTransientConnectionException;
+import java.util.Deque;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+/**
+ * A lightweight connection pool that wraps any {@link DataSource}. Idle connections are kept in a lock-free LIFO
+ * deque, and the number of borrowed connections is bounded by a {@link Semaphore}, so acquiring a connection never
+ * blocks on a monitor and does not pin virtual threads.
+ * <p>
+ * Connections are validated on borrow, idle connections above the min size are evicted after the idle timeout, and
+ * connections that are held longer than the leak detection threshold are reported with the stack trace of the
+ * borrower. Closing a borrowed connection returns it to the pool.
+ */
+@Log4j2
+public class PooledDataSource implements DataSource, AutoCloseable {
+    private static final int VALIDATION_TIMEOUT_SECONDS = 5;
+
+    private final DataSource targetDataSource;
+    private final int minSize;
+    private final int maxSize;
+    private final long connectionTimeoutMillis;
+    private final long idleTimeoutMillis;
+    private final long leakDetectionThresholdMillis;
+    private final boolean validateOnBorrow;
+
+    private final Deque<PooledConnection> idleConnections = new ConcurrentLinkedDeque<>();
+    private final Set<PooledConnection> borrowedConnections = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger totalConnections = new AtomicInteger();
+    private final Semaphore borrowPermits;
+    private final ScheduledExecutorService housekeeper;
+    private volatile boolean closed;
+
+    public PooledDataSource(DataSource targetDataSource, Settings settings) {
+        this.targetDataSource = targetDataSource;
+        this.minSize = settings.getPoolMinSize();
+        this.maxSize = settings.getPoolMaxSize();
+        this.connectionTimeoutMillis = settings.getPoolConnectionTimeout().toMillis();
+        this.idleTimeoutMillis = settings.getPoolIdleTimeout().toMillis();
+        this.leakDetectionThresholdMillis = settings.getPoolLeakDetectionThreshold().toMillis();
+        this.validateOnBorrow = settings.isPoolValidateOnBorrow();
+        if (minSize < 0 || maxSize < 1 || minSize > maxSize) {
+            throw new IllegalArgumentException("Invalid pool size: min = " + minSize + ", max = " + maxSize);
+        }
+        this.borrowPermits = new Semaphore(maxSize, true);
+        this.housekeeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            var thread = new Thread(runnable, "bibernate-pool-housekeeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        var housekeepingPeriodMillis = Math.max(100, Math.min(idleTimeoutMillis / 2, 30_000));
+        housekeeper.scheduleWithFixedDelay(this::housekeeping, 0, housekeepingPeriodMillis, TimeUnit.MILLISECONDS);
+        log.info("Created connection pool (min = {}, max = {})", minSize, maxSize);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (closed) {
+            throw new SQLException("Connection pool is closed");
+        }
+        acquirePermit();
+        try {
+            var pooledConnection = pollValidIdleConnection();
+            if (pooledConnection == null) {
+                pooledConnection = createConnection();
+            }
+            pooledConnection.borrowedAt = System.currentTimeMillis();
+            pooledConnection.borrowStackTrace = leakDetectionThresholdMillis > 0
+                    ? new Throwable("Connection borrowed here") : null;
+            pooledConnection.leakReported = false;
+            borrowedConnections.add(pooledConnection);
+            return pooledConnection.newProxy();
+        } catch (SQLException | RuntimeException e) {
+            borrowPermits.release();
+            throw e;
+        }
+    }
+
+    private void acquirePermit() throws SQLException {
+        try {
+            if (!borrowPermits.tryAcquire(connectionTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                throw new SQLTransientConnectionException("Cannot acquire a connection within "
+                        + connectionTimeoutMillis + " ms (all " + maxSize + " connections are in use)");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a connection", e);
+        }
+    }
+
+    private PooledConnection pollValidIdleConnection() {
+        PooledConnection pooledConnection;
+        while ((pooledConnection = idleConnections.pollFirst()) != null) {
+            if (!validateOnBorrow || isValid(pooledConnection)) {
+                return pooledConnection;
+            }
+            log.debug("Discarding broken connection {}", pooledConnection.connection);
+            closePhysically(pooledConnection);
+        }
+        return null;
+    }
+
+    private boolean isValid(PooledConnection pooledConnection) {
+        try {
+            return pooledConnection.connection.isValid(VALIDATION_TIMEOUT_SECONDS);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private PooledConnection createConnection() throws SQLException {
+        totalConnections.incrementAndGet();
+        try {
+            var connection = targetDataSource.getConnection();
+            log.debug("Opened new physical connection {} (total = {})", connection, totalConnections.get());
+            return new PooledConnection(connection);
+        } catch (SQLException | RuntimeException e) {
+            totalConnections.decrementAndGet();
+            throw e;
+        }
+    }
+
+    private void release(PooledConnection pooledConnection) {
+        borrowedConnections.remove(pooledConnection);
+        try {
+            if (resetState(pooledConnection) && !closed && totalConnections.get() <= maxSize) {
+                pooledConnection.lastUsedAt = System.currentTimeMillis();
+                idleConnections.offerFirst(pooledConnection);
+            } else {
+                closePhysically(pooledConnection);
+            }
+        } finally {
+            borrowPermits.release();
+        }
+    }
+
+    private boolean resetState(PooledConnection pooledConnection) {
+        try {
+            var connection = pooledConnection.connection;
+            if (!connection.getAutoCommit()) {
+                log.debug("Rolling back an unfinished transaction of the returned connection {}", connection);
+                connection.rollback();
+                connection.setAutoCommit(true);
+            }
+            return true;
+        } catch (SQLException e) {
+            log.warn("Cannot reset the returned connection. It will be closed", e);
+            return false;
+        }
+    }
+
+    private void closePhysically(PooledConnection pooledConnection) {
+        totalConnections.decrementAndGet();
+        try {
+            pooledConnection.connection.close();
+        } catch (SQLException e) {
+            log.debug("Error while closing a physical connection", e);
+        }
+    }
+
+    private void housekeeping() {
+        try {
+            evictIdleConnections();
+            fillToMinSize();
+            detectLeaks();
+        } catch (RuntimeException e) {
+            log.warn("Connection pool housekeeping failed", e);
+        }
+    }
+
+    private void evictIdleConnections() {
+        var evictBefore = System.currentTimeMillis() - idleTimeoutMillis;
+        var iterator = idleConnections.descendingIterator(); // the oldest connections are at the tail
+        while (iterator.hasNext() && totalConnections.get() > minSize) {
+            var pooledConnection = iterator.next();
+            if (pooledConnection.lastUsedAt < evictBefore && idleConnections.removeLastOccurrence(pooledConnection)) {
+                log.debug("Evicting idle connection {}", pooledConnection.connection);
+                closePhysically(pooledConnection);
+            }
+        }
+    }
+
+    private void fillToMinSize() {
+        while (!closed && totalConnections.get() < minSize) {
+            try {
+                var pooledConnection = createConnection();
+                pooledConnection.lastUsedAt = System.currentTimeMillis();
+                idleConnections.offerLast(pooledConnection);
+            } catch (SQLException e) {
+                log.warn("Cannot open a connection to fill the pool up to the min size", e);
+                return;
+            }
+        }
+    }
+
+    private void detectLeaks() {
+        if (leakDetectionThresholdMillis <= 0) {
+            return;
+        }
+        var leakedBefore = System.currentTimeMillis() - leakDetectionThresholdMillis;
+        for (var pooledConnection : borrowedConnections) {
+            if (!pooledConnection.leakReported && pooledConnection.borrowedAt < leakedBefore) {
+                pooledConnection.leakReported = true;
+                log.warn("Connection {} has been borrowed for more than {} ms. It is probably leaked",
+                        pooledConnection.connection, leakDetectionThresholdMillis, pooledConnection.borrowStackTrace);
+            }
+        }
+    }
+
+    public int getTotalConnections() {
+        return totalConnections.get();
+    }
+
+    public int getIdleConnections() {
+        return idleConnections.size();
+    }
+
+    public int getActiveConnections() {
+        return borrowedConnections.size();
+    }
+
+    /**
+     * Closes all idle connections and stops housekeeping. Borrowed connections are closed when they are returned.
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        log.info("Closing connection pool");
+        closed = true;
+        housekeeper.shutdownNow();
+        PooledConnection pooledConnection;
+        while ((pooledConnection = idleConnections.pollFirst()) != null) {
+            closePhysically(pooledConnection);
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        throw new SQLFeatureNotSupportedException("Pooled connections cannot be opened with custom credentials");
+    }
+
+    @Override
+    public PrintWriter getLogWriter() throws SQLException {
+        return targetDataSource.getLogWriter();
+    }
+
+    @Override
+    public void setLogWriter(PrintWriter out) throws SQLException {
+        targetDataSource.setLogWriter(out);
+    }
+
+    @Override
+    public void setLoginTimeout(int seconds) throws SQLException {
+        targetDataSource.setLoginTimeout(seconds);
+    }
+
+    @Override
+    public int getLoginTimeout() throws SQLException {
+        return targetDataSource.getLoginTimeout();
+    }
+
+    @Override
+    public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        return targetDataSource.getParentLogger();
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        return iface.isInstance(this) ? iface.cast(this) : targetDataSource.unwrap(iface);
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) throws SQLException {
+        return iface.isInstance(this) || targetDataSource.isWrapperFor(iface);
+    }
+
+    /**
+     * A physical connection with its pool bookkeeping
+     */
+    private class PooledConnection {
+        private final Connection connection;
+        private volatile long lastUsedAt;
+        private volatile long borrowedAt;
+        private volatile Throwable borrowStackTrace;
+        private volatile boolean leakReported;
+
+        private PooledConnection(Connection connection) {
+            this.connection = connection;
+        }
+
+        private Connection newProxy() {
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                    new Class<?>[]{Connection.class}, new ConnectionHandler(this));
+        }
+    }
+
+    /**
+     * A handler of the connection proxy given to a borrower. Closing the proxy returns the connection to the pool, and
+     * any call after that fails, so a returned connection cannot be used by mistake.
+     */
+    private class ConnectionHandler implements InvocationHandler {
+        private final PooledConnection pooledConnection;
+        private volatile boolean closed;
+
+        private ConnectionHandler(PooledConnection pooledConnection) {
+            this.pooledConnection = pooledConnection;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!closed) {
+                        closed = true;
+                        release(pooledConnection);
+                    }
+                    return null;
+                case "isClosed":
+                    return closed || pooledConnection.connection.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "Pooled" + pooledConnection.connection;
+                default:
+                    if (closed) {
+                        throw new SQLException("Connection is closed");
+                    }
+                    try {
+                        return method.invoke(pooledConnection.connection, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+            }
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package bibernate.session.impl;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Runs tasks one at a time in submission order on top of another executor. Tasks may run on different threads, but
+ * each task happens-before the next one, so state confined to the tasks needs no locking.
+ */
+class SerialExecutor implements Executor {
+    private final Executor executor;
+    private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    SerialExecutor(Executor executor) {
+        this.executor = executor;
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        tasks.add(task);
+        scheduleNext();
+    }
+
+    private void scheduleNext() {
+        if (!tasks.isEmpty() && running.compareAndSet(false, true)) {
+            try {
+                executor.execute(this::runTasks);
+            } catch (RejectedExecutionException e) {
+                running.set(false);
+                throw e;
+            }
+        }
+    }
+
+    private void runTasks() {
+        try {
+            Runnable task;
+            while ((task = tasks.poll()) != null) {
+                task.run();
+            }
+        } finally {
+            running.set(false);
+            scheduleNext();
+        }
+    }
+}
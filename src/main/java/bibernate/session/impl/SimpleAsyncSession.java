@@ -0,0 +1,83 @@
+package bibernate.session.impl;
+
+import bibernate.session.AsyncSession;
+import bibernate.session.Session;
+import lombok.extern.log4j.Log4j2;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+
+/**
+ * An {@link AsyncSession} that confines a {@link StatefulSession} to a {@link SerialExecutor}. The persistence
+ * context and the connection of the session are only ever accessed by one task at a time. Lazy collections of the
+ * returned entities may only be initialized by a task, otherwise an {@link IllegalStateException} is thrown.
+ */
+@Log4j2
+public class SimpleAsyncSession implements AsyncSession {
+    private final StatefulSession session;
+    private final Executor serialExecutor;
+
+    public SimpleAsyncSession(SimpleSessionFactory sessionFactory, Executor executor) {
+        this.session = new StatefulSession(sessionFactory, true);
+        this.serialExecutor = new SerialExecutor(executor);
+    }
+
+    @Override
+    public <T> CompletionStage<T> find(Class<T> entityType, Object id) {
+        return withSession(s -> s.find(entityType, id));
+    }
+
+    @Override
+    public <T> CompletionStage<List<T>> findAll(Class<T> entityType, Collection<?> ids) {
+        return withSession(s -> s.findAll(entityType, ids));
+    }
+
+    @Override
+    public <T> CompletionStage<Void> persist(T entity) {
+        return withSession(s -> {
+            s.persist(entity);
+            return null;
+        });
+    }
+
+    @Override
+    public <T> CompletionStage<Void> remove(T entity) {
+        return withSession(s -> {
+            s.remove(entity);
+            return null;
+        });
+    }
+
+    @Override
+    public CompletionStage<Void> flush() {
+        return withSession(s -> {
+            s.flush();
+            return null;
+        });
+    }
+
+    @Override
+    public <R> CompletionStage<R> withSession(Function<Session, R> work) {
+        return CompletableFuture.supplyAsync(() -> {
+            session.taskStarted();
+            try {
+                return work.apply(session);
+            } finally {
+                session.taskCompleted();
+            }
+        }, serialExecutor);
+    }
+
+    @Override
+    public CompletionStage<Void> close() {
+        log.trace("Closing async session");
+        return withSession(s -> {
+            s.close();
+            return null;
+        });
+    }
+}
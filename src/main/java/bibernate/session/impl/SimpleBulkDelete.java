@@ -0,0 +1,36 @@
+package bibernate.session.impl;
+
+import bibernate.metamodel.EntityMetadata;
+import bibernate.session.BulkDelete;
+import bibernate.stat.StatementKind;
+
+import java.util.Collection;
+import java.util.List;
+
+import static bibernate.util.SqlUtil.DELETE_FROM_TABLE_TEMPLATE;
+import static bibernate.util.SqlUtil.DELETE_FROM_TABLE_WHERE_TEMPLATE;
+
+class SimpleBulkDelete<T> extends AbstractBulkStatement<T> implements BulkDelete<T> {
+    SimpleBulkDelete(StatefulSession session, EntityMetadata<T> metadata) {
+        super(session, metadata);
+    }
+
+    @Override
+    public BulkDelete<T> where(String attributeName, Object value) {
+        addCondition(attributeName, value);
+        return this;
+    }
+
+    @Override
+    public BulkDelete<T> whereIn(String attributeName, Collection<?> values) {
+        addInCondition(attributeName, values);
+        return this;
+    }
+
+    @Override
+    public int execute() {
+        return execute(StatementKind.DELETE, whereClause -> whereClause.isEmpty()
+                ? String.format(DELETE_FROM_TABLE_TEMPLATE, metadata.getTableName())
+                : String.format(DELETE_FROM_TABLE_WHERE_TEMPLATE, metadata.getTableName(), whereClause), List.of());
+    }
+}
@@ -0,0 +1,56 @@
+package bibernate.session.impl;
+
+import bibernate.metamodel.EntityAttribute;
+import bibernate.metamodel.EntityMetadata;
+import bibernate.session.BulkUpdate;
+import bibernate.stat.StatementKind;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import static bibernate.util.SqlUtil.*;
+
+class SimpleBulkUpdate<T> extends AbstractBulkStatement<T> implements BulkUpdate<T> {
+    private final List<EntityAttribute> attributes = new ArrayList<>();
+    private final List<Object> values = new ArrayList<>();
+
+    SimpleBulkUpdate(StatefulSession session, EntityMetadata<T> metadata) {
+        super(session, metadata);
+    }
+
+    @Override
+    public BulkUpdate<T> set(String attributeName, Object value) {
+        var attribute = getColumnAttribute(attributeName);
+        if (attribute.isId()) {
+            throw new IllegalArgumentException("Id attribute " + attribute + " cannot be updated");
+        }
+        attributes.add(attribute);
+        values.add(attribute.toColumnValue(value));
+        return this;
+    }
+
+    @Override
+    public BulkUpdate<T> where(String attributeName, Object value) {
+        addCondition(attributeName, value);
+        return this;
+    }
+
+    @Override
+    public BulkUpdate<T> whereIn(String attributeName, Collection<?> values) {
+        addInCondition(attributeName, values);
+        return this;
+    }
+
+    @Override
+    public int execute() {
+        if (attributes.isEmpty()) {
+            throw new IllegalStateException("Update of " + metadata.getEntityType().getSimpleName() + " sets nothing");
+        }
+        var setters = commaSeparatedColumnSetters(attributes);
+        return execute(StatementKind.UPDATE, whereClause -> whereClause.isEmpty()
+                ? String.format(UPDATE_TABLE_SET_VALUES_TEMPLATE, metadata.getTableName(), setters)
+                : String.format(UPDATE_TABLE_SET_VALUES_BY_COLUMN_TEMPLATE, metadata.getTableName(), setters,
+                whereClause), values);
+    }
+}
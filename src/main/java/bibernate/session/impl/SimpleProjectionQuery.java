@@ -0,0 +1,78 @@
+package bibernate.session.impl;
+
+import bibernate.metamodel.ProjectionMapping;
+import bibernate.session.ProjectionQuery;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.StringJoiner;
+
+import static bibernate.util.SqlUtil.SELECT_COLUMNS_FROM_TABLE_TEMPLATE;
+
+class SimpleProjectionQuery<R> implements ProjectionQuery<R> {
+    private final StatefulSession session;
+    private final ProjectionMapping<R> mapping;
+    private final WhereClause whereClause;
+    private final StringJoiner orderBy = new StringJoiner(", ", " ORDER BY ", "").setEmptyValue("");
+    private Integer maxResults;
+
+    SimpleProjectionQuery(StatefulSession session, ProjectionMapping<R> mapping) {
+        this.session = session;
+        this.mapping = mapping;
+        this.whereClause = new WhereClause(mapping.getMetadata());
+    }
+
+    @Override
+    public ProjectionQuery<R> where(String attributeName, Object value) {
+        whereClause.addEquals(attributeName, value);
+        return this;
+    }
+
+    @Override
+    public ProjectionQuery<R> whereIn(String attributeName, Collection<?> values) {
+        whereClause.addIn(attributeName, values);
+        return this;
+    }
+
+    @Override
+    public ProjectionQuery<R> orderBy(String attributeName) {
+        orderBy.add(WhereClause.getColumnAttribute(mapping.getMetadata(), attributeName).getColumnName() + " ASC");
+        return this;
+    }
+
+    @Override
+    public ProjectionQuery<R> orderByDescending(String attributeName) {
+        orderBy.add(WhereClause.getColumnAttribute(mapping.getMetadata(), attributeName).getColumnName() + " DESC");
+        return this;
+    }
+
+    @Override
+    public ProjectionQuery<R> limit(int maxResults) {
+        if (maxResults < 0) {
+            throw new IllegalArgumentException("Max results must not be negative");
+        }
+        this.maxResults = maxResults;
+        return this;
+    }
+
+    @Override
+    public List<R> list() {
+        if (whereClause.isMatchingNoRows() || maxResults != null && maxResults == 0) {
+            return new ArrayList<>();
+        }
+        var sql = new StringBuilder(String.format(SELECT_COLUMNS_FROM_TABLE_TEMPLATE,
+                mapping.getColumns(), mapping.getMetadata().getTableName()));
+        var where = whereClause.toSingleChunk(session.getMaxInListSize());
+        var params = new ArrayList<>(where.params());
+        if (!whereClause.isEmpty()) {
+            sql.append(" WHERE ").append(where.sql());
+        }
+        sql.append(orderBy);
+        if (maxResults != null) {
+            sql.append(" LIMIT ?");
+            params.add(maxResults);
+        }
+        return session.project(mapping, sql.append(';').toString(), params);
+    }
+}
@@ -1,20 +1,123 @@
 package bibernate.session.impl;
 
+import bibernate.cache.QueryCache;
+import bibernate.cache.SecondLevelCache;
+import bibernate.metamodel.Metamodel;
+import bibernate.session.AsyncSession;
 import bibernate.session.Session;
 import bibernate.session.SessionFactory;
-import lombok.RequiredArgsConstructor;
+import bibernate.session.Settings;
+import bibernate.session.StatelessSession;
+import bibernate.stat.SimpleStatistics;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.SneakyThrows;
 import lombok.extern.log4j.Log4j2;
 
+import javax.management.JMException;
+import javax.management.ObjectName;
 import javax.sql.DataSource;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @Log4j2
-@RequiredArgsConstructor
+@Getter
 public class SimpleSessionFactory implements SessionFactory {
     private final DataSource dataSource;
+    private final Settings settings;
+    private final Metamodel metamodel;
+    private final SecondLevelCache secondLevelCache;
+    private final QueryCache queryCache;
+    private final SimpleStatistics statistics;
+    @Getter(AccessLevel.NONE)
+    private final ObjectName statisticsObjectName;
+    @Getter(AccessLevel.NONE)
+    private final Executor asyncExecutor;
+    @Getter(AccessLevel.NONE)
+    private final boolean asyncExecutorOwned;
+
+    public SimpleSessionFactory(DataSource dataSource) {
+        this(dataSource, Settings.defaults());
+    }
+
+    public SimpleSessionFactory(DataSource dataSource, Settings settings) {
+        this.dataSource = settings.isPoolEnabled() ? new PooledDataSource(dataSource, settings) : dataSource;
+        this.settings = settings;
+        this.metamodel = new Metamodel(settings.getPropertyAccessStrategy());
+        this.secondLevelCache = new SecondLevelCache(settings);
+        this.queryCache = new QueryCache(settings);
+        this.statistics = new SimpleStatistics(settings.isStatisticsEnabled());
+        this.statisticsObjectName = settings.isStatisticsEnabled() && settings.isStatisticsJmxEnabled()
+                ? registerStatisticsMXBean(statistics) : null;
+        this.asyncExecutorOwned = settings.getAsyncExecutor() == null;
+        this.asyncExecutor = asyncExecutorOwned ? createDefaultAsyncExecutor() : settings.getAsyncExecutor();
+    }
+
+    @SneakyThrows
+    private static ObjectName registerStatisticsMXBean(SimpleStatistics statistics) {
+        var objectName = new ObjectName("bibernate:type=Statistics,name=SessionFactory@"
+                + Integer.toHexString(System.identityHashCode(statistics)));
+        ManagementFactory.getPlatformMBeanServer().registerMBean(statistics, objectName);
+        log.info("Registered statistics MXBean {}", objectName);
+        return objectName;
+    }
+
+    /**
+     * Creates an executor with a virtual thread per task if the JVM supports them (Java 21+), and a cached pool of
+     * daemon threads otherwise. Threads are created lazily, so an unused executor costs nothing.
+     */
+    private static ExecutorService createDefaultAsyncExecutor() {
+        try {
+            var factoryMethod = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            log.debug("Using virtual threads for async sessions");
+            return (ExecutorService) factoryMethod.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            log.debug("Virtual threads are not available. Using a cached thread pool for async sessions");
+            var threadNumber = new AtomicInteger();
+            return Executors.newCachedThreadPool(runnable -> {
+                var thread = new Thread(runnable, "bibernate-async-" + threadNumber.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
 
     @Override
     public Session openSession() {
         log.info("Opening new StatefulSession");
-        return new StatefulSession(dataSource);
+        return new StatefulSession(this);
+    }
+
+    @Override
+    public StatelessSession openStatelessSession() {
+        log.info("Opening new StatelessSession");
+        return new SimpleStatelessSession(this);
+    }
+
+    @Override
+    public AsyncSession openAsyncSession() {
+        log.info("Opening new AsyncSession");
+        return new SimpleAsyncSession(this, asyncExecutor);
+    }
+
+    @Override
+    public void close() {
+        log.info("Closing SessionFactory");
+        if (statisticsObjectName != null) {
+            try {
+                ManagementFactory.getPlatformMBeanServer().unregisterMBean(statisticsObjectName);
+            } catch (JMException e) {
+                log.warn("Cannot unregister statistics MXBean {}", statisticsObjectName, e);
+            }
+        }
+        if (asyncExecutorOwned && asyncExecutor instanceof ExecutorService executorService) {
+            executorService.shutdown();
+        }
+        if (dataSource instanceof PooledDataSource pooledDataSource) {
+            pooledDataSource.close();
+        }
     }
 }
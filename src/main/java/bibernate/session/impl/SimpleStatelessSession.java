@@ -0,0 +1,272 @@
+package bibernate.session.impl;
+
+import bibernate.cache.QueryCache;
+import bibernate.cache.SecondLevelCache;
+import bibernate.jfr.ConnectionAcquisitionEvent;
+import bibernate.metamodel.AttributeKind;
+import bibernate.metamodel.EntityMetadata;
+import bibernate.metamodel.Metamodel;
+import bibernate.session.StatelessSession;
+import bibernate.stat.SimpleStatistics;
+import bibernate.stat.StatementKind;
+import bibernate.util.EntityKey;
+import lombok.SneakyThrows;
+import lombok.extern.log4j.Log4j2;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * A {@link StatelessSession} that maps entities directly to and from JDBC statements using {@link EntityMetadata}.
+ * It holds nothing but a connection and its {@link StatementCache}, so its memory does not grow with the number of
+ * processed entities. Writes evict the affected entities from the second-level cache, and once more when the
+ * transaction completes. Reads bypass the cache.
+ */
+@Log4j2
+public class SimpleStatelessSession implements StatelessSession {
+    private final DataSource dataSource;
+    private final Metamodel metamodel;
+    private final SecondLevelCache secondLevelCache;
+    private final QueryCache queryCache;
+    private final SimpleStatistics statistics;
+    private final int statementCacheSize;
+    /**
+     * Tables written in the current transaction. Their query cache results are invalidated once more on completion
+     */
+    private final Set<String> tablesWrittenInTransaction = new LinkedHashSet<>();
+    /**
+     * Keys of entities written in the current transaction. They are evicted from the second-level cache on every write
+     * and once more on completion, in case another session cached their state in the meantime.
+     */
+    private final Set<EntityKey<?>> entitiesToEvictOnCompletion = new LinkedHashSet<>();
+    private Connection connection;
+    private StatementCache statementCache;
+    private boolean transactionActive;
+    private boolean closed;
+
+    public SimpleStatelessSession(SimpleSessionFactory sessionFactory) {
+        this.dataSource = sessionFactory.getDataSource();
+        this.metamodel = sessionFactory.getMetamodel();
+        this.secondLevelCache = sessionFactory.getSecondLevelCache();
+        this.queryCache = sessionFactory.getQueryCache();
+        this.statistics = sessionFactory.getStatistics();
+        this.statementCacheSize = sessionFactory.getSettings().getStatementCacheSize();
+    }
+
+    @Override
+    @SneakyThrows
+    public <T> void insert(T entity) {
+        verifyIsOpen();
+        log.trace("Inserting entity {}", entity);
+        var metadata = metamodel.getEntityMetadataOf(entity);
+        metadata.generateIdIfAbsent(entity, this::getConnection);
+        var statement = prepareStatement(metadata.getInsertSql());
+        var columnAttributes = metadata.getColumnAttributes();
+        for (int i = 0; i < columnAttributes.size(); i++) {
+            statement.setObject(i + 1, columnAttributes.get(i).getColumnValue(entity));
+        }
+        executeUpdate(statement, StatementKind.INSERT);
+        entityWritten(metadata, metadata.getId(entity));
+        statistics.entitiesInserted(metadata.getEntityType(), 1);
+    }
+
+    @Override
+    @SneakyThrows
+    public <T> void update(T entity) {
+        verifyIsOpen();
+        log.trace("Updating entity {}", entity);
+        var metadata = metamodel.getEntityMetadataOf(entity);
+        var statement = prepareStatement(metadata.getUpdateSql());
+        var updatableAttributes = metadata.getUpdatableAttributes();
+        for (int i = 0; i < updatableAttributes.size(); i++) {
+            statement.setObject(i + 1, updatableAttributes.get(i).getColumnValue(entity));
+        }
+        var id = metadata.getId(entity);
+        statement.setObject(updatableAttributes.size() + 1, id);
+        executeUpdate(statement, StatementKind.UPDATE);
+        entityWritten(metadata, id);
+        statistics.entitiesUpdated(metadata.getEntityType(), 1);
+    }
+
+    @Override
+    @SneakyThrows
+    public <T> void delete(T entity) {
+        verifyIsOpen();
+        log.trace("Deleting entity {}", entity);
+        var metadata = metamodel.getEntityMetadataOf(entity);
+        var statement = prepareStatement(metadata.getDeleteSql());
+        var id = metadata.getId(entity);
+        statement.setObject(1, id);
+        executeUpdate(statement, StatementKind.DELETE);
+        entityWritten(metadata, id);
+        statistics.entitiesDeleted(metadata.getEntityType(), 1);
+    }
+
+    @Override
+    @SneakyThrows
+    public <T> T get(Class<T> entityType, Object id) {
+        verifyIsOpen();
+        log.trace("Selecting entity {} by id = {}", entityType.getSimpleName(), id);
+        var metadata = metamodel.getEntityMetadata(entityType);
+        var statement = prepareStatement(metadata.getSelectByIdSql());
+        statement.setObject(1, id);
+        log.debug("SQL: {}", statement);
+        statistics.statementsExecuted(StatementKind.SELECT, 1);
+        Object[] state;
+        try (var resultSet = statement.executeQuery()) {
+            if (!resultSet.next()) {
+                return null;
+            }
+            state = metadata.getRowHydrator(metadata.getSelectByIdSql(), resultSet).readState(resultSet);
+        }
+        return createEntityFrom(metadata, state);
+    }
+
+    private <T> T createEntityFrom(EntityMetadata<T> metadata, Object[] state) {
+        statistics.entityLoaded(metadata.getEntityType());
+        var entity = metadata.newInstance();
+        var columnAttributes = metadata.getColumnAttributes();
+        for (int i = 0; i < state.length; i++) {
+            var attribute = columnAttributes.get(i);
+            if (attribute.getKind() == AttributeKind.BASIC) {
+                attribute.setValue(entity, state[i]);
+            } else if (state[i] != null) {
+                attribute.setValue(entity, get(attribute.getTargetEntityType(), state[i]));
+            }
+        }
+        return entity;
+    }
+
+    @SneakyThrows
+    private void executeUpdate(PreparedStatement statement, StatementKind kind) {
+        log.debug("SQL: {}", statement);
+        statement.executeUpdate();
+        statistics.statementsExecuted(kind, 1);
+    }
+
+    @Override
+    @SneakyThrows
+    public void beginTransaction() {
+        verifyIsOpen();
+        if (transactionActive) {
+            throw new IllegalStateException("Transaction is already active");
+        }
+        log.debug("Beginning transaction");
+        getConnection().setAutoCommit(false);
+        transactionActive = true;
+    }
+
+    @Override
+    @SneakyThrows
+    public void commit() {
+        verifyIsOpen();
+        verifyTransactionIsActive();
+        log.debug("Committing transaction");
+        connection.commit();
+        connection.setAutoCommit(true);
+        transactionActive = false;
+        evictWrittenEntitiesFromSecondLevelCache();
+        invalidateWrittenTables();
+    }
+
+    @Override
+    @SneakyThrows
+    public void rollback() {
+        verifyIsOpen();
+        verifyTransactionIsActive();
+        log.debug("Rolling back transaction");
+        try {
+            connection.rollback();
+            connection.setAutoCommit(true);
+        } finally {
+            transactionActive = false;
+            evictWrittenEntitiesFromSecondLevelCache();
+            invalidateWrittenTables();
+        }
+    }
+
+    private void entityWritten(EntityMetadata<?> metadata, Object id) {
+        secondLevelCache.evict(metadata, id);
+        if (transactionActive && secondLevelCache.isEnabled()) {
+            entitiesToEvictOnCompletion.add(EntityKey.of(metadata.getEntityType(), id));
+        }
+        tableWritten(metadata.getTableName());
+    }
+
+    private void tableWritten(String tableName) {
+        queryCache.invalidate(tableName);
+        if (transactionActive) {
+            tablesWrittenInTransaction.add(tableName);
+        }
+    }
+
+    private void evictWrittenEntitiesFromSecondLevelCache() {
+        for (var key : entitiesToEvictOnCompletion) {
+            secondLevelCache.evict(metamodel.getEntityMetadata(key.entityType()), key.id());
+        }
+        entitiesToEvictOnCompletion.clear();
+    }
+
+    private void invalidateWrittenTables() {
+        tablesWrittenInTransaction.forEach(queryCache::invalidate);
+        tablesWrittenInTransaction.clear();
+    }
+
+    private void verifyTransactionIsActive() {
+        if (!transactionActive) {
+            throw new IllegalStateException("There is no active transaction");
+        }
+    }
+
+    @SneakyThrows
+    private Connection getConnection() {
+        if (connection == null) {
+            log.trace("Acquiring a connection for the stateless session");
+            var event = new ConnectionAcquisitionEvent();
+            event.begin();
+            var startNanos = System.nanoTime();
+            connection = dataSource.getConnection();
+            statistics.connectionAcquired(System.nanoTime() - startNanos);
+            if (event.shouldCommit()) {
+                event.dataSourceType = dataSource.getClass();
+                event.commit();
+            }
+            statementCache = new StatementCache(connection, statementCacheSize);
+        }
+        return connection;
+    }
+
+    private PreparedStatement prepareStatement(String sql) {
+        getConnection();
+        return statementCache.prepareStatement(sql);
+    }
+
+    @Override
+    @SneakyThrows
+    public void close() {
+        verifyIsOpen();
+        log.info("Closing stateless session");
+        try {
+            if (transactionActive) {
+                log.warn("Closing a session with an active transaction. Rolling it back");
+                rollback();
+            }
+        } finally {
+            closed = true;
+            if (connection != null) {
+                statementCache.close();
+                connection.close();
+                connection = null;
+            }
+        }
+    }
+
+    private void verifyIsOpen() {
+        if (closed) {
+            throw new IllegalStateException("Session is closed");
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package bibernate.session.impl;
+
+import java.util.List;
+
+/**
+ * A SQL statement or its fragment together with the values of its params
+ */
+record SqlWithParams(String sql, List<Object> params) {
+}
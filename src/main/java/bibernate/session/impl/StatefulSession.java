@@ -1,20 +1,39 @@
 package bibernate.session.impl;
 
+import bibernate.action.ActionQueue;
 import bibernate.action.EntityAction;
 import bibernate.action.EntityDeleteAction;
 import bibernate.action.EntityInsertAction;
 import bibernate.action.EntityUpdateAction;
+import bibernate.cache.QueryCache;
+import bibernate.cache.SecondLevelCache;
+import bibernate.jfr.ConnectionAcquisitionEvent;
+import bibernate.jfr.FlushEvent;
+import bibernate.metamodel.EntityMetadata;
+import bibernate.metamodel.Metamodel;
+import bibernate.metamodel.ProjectionMapping;
+import bibernate.session.BulkDelete;
+import bibernate.session.BulkUpdate;
+import bibernate.session.FetchPlan;
+import bibernate.session.MissingEntityPolicy;
+import bibernate.session.ProjectionQuery;
 import bibernate.session.Session;
+import bibernate.session.StreamOptions;
+import bibernate.stat.SimpleStatistics;
+import bibernate.stat.StatementKind;
 import bibernate.util.EntityKey;
-import lombok.RequiredArgsConstructor;
 import lombok.SneakyThrows;
 import lombok.extern.log4j.Log4j2;
 
 import javax.sql.DataSource;
-import java.util.PriorityQueue;
-import java.util.Queue;
-
-import static java.util.Comparator.comparing;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
 
 /**
  * A stateful implementation of a {@link Session} interface. It {@link PersistenceContext} as a 1st level cache of
@@ -25,28 +44,91 @@ import static java.util.Comparator.comparing;
  * 1. INSERT
  * 2. UPDATE
  * 3. DELETE
- * Actions in the queue are executed on flush.
+ * Actions in the queue are executed on flush. Actions of the same kind for the same entity type are executed as JDBC
+ * batches (see {@link ActionQueue}).
+ * <p>
+ * The session holds a single connection that is used for all the reads and writes. A flush outside of an explicit
+ * transaction ({@link #beginTransaction()}) is executed and committed as one transaction. If a flush fails inside an
+ * explicit transaction, the transaction is marked rollback-only, so it cannot be committed with a part of the changes.
  * <p>
  * All entity updates (entity state changes) are tracked via Dirty Checking mechanism. It means that initial entity
  * snapshots are stored in the {@link PersistenceContext} and then are compared with entity state to detect changes.
  */
 @Log4j2
-@RequiredArgsConstructor
 public class StatefulSession implements Session {
-    private EntityPersister persister;
-    private PersistenceContext persistenceContext = new PersistenceContext();
+    private final DataSource dataSource;
+    private final Metamodel metamodel;
+    private final EntityPersister persister;
+    private final PersistenceContext persistenceContext;
 
-    private Queue<EntityAction> actionQueue = new PriorityQueue<>(comparing(EntityAction::priority));
+    private final ActionQueue actionQueue;
+    private final SecondLevelCache secondLevelCache;
+    private final QueryCache queryCache;
+    private final SimpleStatistics statistics;
+    /**
+     * Keys of entities inserted, updated or deleted in the current transaction. They are evicted from the second-level
+     * cache once more when the transaction commits or rolls back, in case another session cached their state in the
+     * meantime.
+     */
+    private final Set<EntityKey<?>> entitiesToEvictOnCompletion = new LinkedHashSet<>();
+    /**
+     * Entity types changed by set-based statements in the current transaction. Their whole regions are evicted once
+     * more when the transaction completes.
+     */
+    private final Set<EntityMetadata<?>> entityTypesToEvictOnCompletion = new LinkedHashSet<>();
+    /**
+     * Tables written in the current transaction. Their query cache results are invalidated on every write and once
+     * more when the transaction completes, as other sessions may cache results read before the commit.
+     */
+    private final Set<String> tablesWrittenInTransaction = new LinkedHashSet<>();
+    private final int statementCacheSize;
+    private final int maxInListSize;
+    private Connection connection;
+    private StatementCache statementCache;
+    private boolean transactionActive;
+    /**
+     * Set when a flush fails inside an explicit transaction. Such a transaction can only be rolled back.
+     */
+    private boolean rollbackOnly;
+    /**
+     * Statements of the streamed queries that are not closed yet
+     */
+    private final Set<PreparedStatement> cursorStatements = new LinkedHashSet<>();
     private boolean closed;
+    /**
+     * Whether the session is confined to the executor of an async session
+     */
+    private final boolean executorConfined;
+    /**
+     * The thread that runs the current task of the async session, or {@code null} between tasks
+     */
+    private volatile Thread taskThread;
+
+    public StatefulSession(SimpleSessionFactory sessionFactory) {
+        this(sessionFactory, false);
+    }
 
-    public StatefulSession(DataSource dataSource) {
-        persister = new EntityPersister(dataSource, this, persistenceContext);
+    StatefulSession(SimpleSessionFactory sessionFactory, boolean executorConfined) {
+        this.executorConfined = executorConfined;
+        this.dataSource = sessionFactory.getDataSource();
+        this.statementCacheSize = sessionFactory.getSettings().getStatementCacheSize();
+        this.maxInListSize = sessionFactory.getSettings().getMaxInListSize();
+        this.metamodel = sessionFactory.getMetamodel();
+        this.persistenceContext = new PersistenceContext(metamodel,
+                sessionFactory.getSettings().getParallelDirtyCheckThreshold(),
+                sessionFactory.getSettings().getDirtyCheckPool());
+        this.persister = new EntityPersister(sessionFactory, this, persistenceContext);
+        this.actionQueue = new ActionQueue(metamodel);
+        this.secondLevelCache = sessionFactory.getSecondLevelCache();
+        this.queryCache = sessionFactory.getQueryCache();
+        this.statistics = sessionFactory.getStatistics();
     }
 
     @Override
     public <T> void persist(T entity) {
         verifyIsOpen();
         log.info("Persisting entity {}", entity);
+        metamodel.getEntityMetadataOf(entity).generateIdIfAbsent(entity, this::getConnection);
         if (persistenceContext.contains(entity)) {
             throw new RuntimeException("Entity already exists");
         }
@@ -63,50 +145,386 @@ public class StatefulSession implements Session {
         return persister.findById(entityType, id);
     }
 
+    @Override
+    public <T> T find(Class<T> entityType, Object id, FetchPlan fetchPlan) {
+        verifyIsOpen();
+        log.info("Finding entity {} by id = {} with {}", entityType.getSimpleName(), id, fetchPlan);
+        return persister.findById(entityType, id, fetchPlan);
+    }
+
+    @Override
+    public <T> List<T> findAll(Class<T> entityType, Collection<?> ids) {
+        return findAll(entityType, ids, MissingEntityPolicy.SKIP);
+    }
+
+    @Override
+    public <T> List<T> findAll(Class<T> entityType, Collection<?> ids, MissingEntityPolicy missingEntityPolicy) {
+        verifyIsOpen();
+        log.info("Finding {} entities {} by ids", ids.size(), entityType.getSimpleName());
+        return persister.findAllById(entityType, ids, missingEntityPolicy);
+    }
+
+    @Override
+    public <T> Stream<T> stream(Class<T> entityType, String attributeName, Object value) {
+        return stream(entityType, attributeName, value, StreamOptions.defaults());
+    }
+
+    @Override
+    public <T> Stream<T> stream(Class<T> entityType, String attributeName, Object value, StreamOptions options) {
+        verifyIsOpen();
+        log.info("Streaming entities {} by {} = {}", entityType.getSimpleName(), attributeName, value);
+        return persister.streamBy(entityType, attributeName, value, options);
+    }
+
+    @Override
+    public <T> Stream<T> streamQuery(Class<T> entityType, String sql, StreamOptions options, Object... params) {
+        verifyIsOpen();
+        log.info("Streaming entities {} by query: {}", entityType.getSimpleName(), sql);
+        return persister.streamQuery(entityType, sql, options, params);
+    }
+
     @Override
     public <T> void remove(T entity) {
         verifyIsOpen();
         log.info("Removing entity {}", entity);
-        var managedEntity = persistenceContext.getEntity(EntityKey.valueOf(entity));
+        var managedEntity = persistenceContext.getEntity(metamodel.getEntityMetadataOf(entity).keyOf(entity));
         if (managedEntity == null) {
             throw new RuntimeException("Cannot remove an entity that are not in the current session");
         }
         actionQueue.add(new EntityDeleteAction(entity, persister));
     }
 
+    @Override
+    public <T> BulkUpdate<T> createUpdate(Class<T> entityType) {
+        verifyIsOpen();
+        return new SimpleBulkUpdate<>(this, metamodel.getEntityMetadata(entityType));
+    }
+
+    @Override
+    public <T> BulkDelete<T> createDelete(Class<T> entityType) {
+        verifyIsOpen();
+        return new SimpleBulkDelete<>(this, metamodel.getEntityMetadata(entityType));
+    }
+
+    @Override
+    public <R> ProjectionQuery<R> createProjection(Class<?> entityType, Class<R> resultType) {
+        verifyIsOpen();
+        return new SimpleProjectionQuery<>(this, metamodel.getProjectionMapping(entityType, resultType));
+    }
+
+    <R> List<R> project(ProjectionMapping<R> mapping, String sql, List<Object> params) {
+        verifyIsOpen();
+        return persister.project(mapping, sql, params);
+    }
+
+    /**
+     * Flushes the session and executes a set-based statement, which may be split into several statements with the same
+     * effect. They are executed in one transaction. Entities of the type are detached and evicted from the second-level
+     * cache right away, and once more when the current transaction completes.
+     *
+     * @return the total number of affected rows
+     */
+    int executeBulk(EntityMetadata<?> metadata, StatementKind kind, List<SqlWithParams> statements) {
+        verifyIsOpen();
+        flush();
+        log.info("Executing bulk {} of {} as {} statement(s)", kind, metadata.getEntityType().getSimpleName(),
+                statements.size());
+        if (statements.size() == 1 || transactionActive) {
+            return executeBulkStatements(metadata, kind, statements);
+        }
+        log.trace("No active transaction. Executing bulk statements in a new one");
+        beginTransaction();
+        int rowCount;
+        try {
+            rowCount = executeBulkStatements(metadata, kind, statements);
+        } catch (Exception e) { // SQLExceptions are sneaky thrown
+            rollback();
+            throw e;
+        }
+        commitTransaction();
+        return rowCount;
+    }
+
+    private int executeBulkStatements(EntityMetadata<?> metadata, StatementKind kind, List<SqlWithParams> statements) {
+        var rowCount = 0;
+        try {
+            for (var statement : statements) {
+                rowCount += persister.executeBulk(metadata, kind, statement.sql(), statement.params());
+            }
+        } finally {
+            secondLevelCache.evictAll(metadata);
+            tableWritten(metadata.getTableName());
+            if (transactionActive) {
+                entityTypesToEvictOnCompletion.add(metadata);
+            }
+        }
+        return rowCount;
+    }
+
     @Override
     public void flush() {
         verifyIsOpen();
+        verifyIsNotRollbackOnly();
         log.trace("Session flush");
-        dirtyChecking();
-        processActionQueue();
+        var event = new FlushEvent();
+        event.begin();
+        var startNanos = System.nanoTime();
+        try {
+            event.dirtyEntityCount = dirtyChecking();
+            var dirtyCheckEndNanos = System.nanoTime();
+            event.dirtyCheckDuration = dirtyCheckEndNanos - startNanos;
+            if (actionQueue.isEmpty()) {
+                log.trace("Nothing to flush");
+            } else if (transactionActive) {
+                try {
+                    event.actionCount = processActionQueue();
+                } catch (Exception e) { // SQLExceptions are sneaky thrown
+                    log.debug("Flush failed. Marking the transaction rollback-only");
+                    rollbackOnly = true;
+                    throw e;
+                }
+            } else {
+                log.trace("No active transaction. Flushing in a new one");
+                beginTransaction();
+                try {
+                    event.actionCount = processActionQueue();
+                } catch (Exception e) { // SQLExceptions are sneaky thrown
+                    rollback();
+                    throw e;
+                }
+                commitTransaction();
+            }
+            event.actionExecutionDuration = System.nanoTime() - dirtyCheckEndNanos;
+        } finally {
+            statistics.flushed(System.nanoTime() - startNanos);
+            event.commit();
+        }
     }
 
-    private void dirtyChecking() {
+    /**
+     * Queues updates of the dirty entities and returns their number
+     */
+    private int dirtyChecking() {
         log.trace("Checking dirty entities");
-        var entities = persistenceContext.getDirtyEntities();
-        var updateActions = entities.stream()
-                .peek(e -> log.trace("Creating EntityUpdateAction for entity {}", e))
-                .map(e -> new EntityUpdateAction(e, persister))
+        var dirtyEntities = persistenceContext.getDirtyEntities();
+        var updateActions = dirtyEntities.stream()
+                .peek(e -> log.trace("Creating EntityUpdateAction for entity {}", e.entity()))
+                .map(e -> new EntityUpdateAction(e.entity(), e.dirtyAttributes(), persister))
                 .toList();
         actionQueue.addAll(updateActions);
+        return updateActions.size();
     }
 
-    private void processActionQueue() {
+    /**
+     * Executes the queued actions, synchronizes the context with them and returns the number of executed actions.
+     * Written tables and entities are recorded before the execution, so they are known even if it fails halfway.
+     */
+    private int processActionQueue() {
         log.trace("Flushing ActionQueue");
-        while (!actionQueue.isEmpty()) {
-            var entityAction = actionQueue.poll();
-            entityAction.execute();
+        for (var action : actionQueue.getActions()) {
+            var metadata = metamodel.getEntityMetadataOf(action.getEntity());
+            if (secondLevelCache.isEnabled()) {
+                entitiesToEvictOnCompletion.add(metadata.keyOf(action.getEntity()));
+            }
+            tableWritten(metadata.getTableName());
+        }
+        var executedActions = actionQueue.executeActions();
+        log.trace("Synchronizing the context with {} executed action(s)", executedActions.size());
+        for (var action : executedActions) {
+            if (action instanceof EntityDeleteAction) {
+                persistenceContext.removeEntity(action.getEntity());
+            } else {
+                persistenceContext.addEntity(action.getEntity());
+            }
+        }
+        return executedActions.size();
+    }
+
+    @Override
+    @SneakyThrows
+    public void beginTransaction() {
+        verifyIsOpen();
+        if (transactionActive) {
+            throw new IllegalStateException("Transaction is already active");
+        }
+        log.debug("Beginning transaction");
+        getConnection().setAutoCommit(false);
+        transactionActive = true;
+    }
+
+    @Override
+    public void commit() {
+        verifyIsOpen();
+        verifyTransactionIsActive();
+        if (rollbackOnly) {
+            rollback();
+            throw new IllegalStateException("Transaction is marked rollback-only after a failed flush. "
+                    + "It has been rolled back");
+        }
+        flush();
+        commitTransaction();
+    }
+
+    @SneakyThrows
+    private void commitTransaction() {
+        log.debug("Committing transaction");
+        connection.commit();
+        connection.setAutoCommit(cursorStatements.isEmpty());
+        transactionActive = false;
+        evictWrittenEntitiesFromSecondLevelCache();
+        invalidateWrittenTables();
+    }
+
+    private void tableWritten(String tableName) {
+        queryCache.invalidate(tableName);
+        if (transactionActive) {
+            tablesWrittenInTransaction.add(tableName);
+        }
+    }
+
+    boolean isWrittenInTransaction(String tableName) {
+        return tablesWrittenInTransaction.contains(tableName);
+    }
+
+    private void invalidateWrittenTables() {
+        tablesWrittenInTransaction.forEach(queryCache::invalidate);
+        tablesWrittenInTransaction.clear();
+    }
+
+    private void evictWrittenEntitiesFromSecondLevelCache() {
+        for (var key : entitiesToEvictOnCompletion) {
+            secondLevelCache.evict(metamodel.getEntityMetadata(key.entityType()), key.id());
         }
+        entitiesToEvictOnCompletion.clear();
+        entityTypesToEvictOnCompletion.forEach(secondLevelCache::evictAll);
+        entityTypesToEvictOnCompletion.clear();
     }
 
     @Override
+    @SneakyThrows
+    public void rollback() {
+        verifyIsOpen();
+        verifyTransactionIsActive();
+        log.debug("Rolling back transaction");
+        try {
+            connection.rollback();
+            connection.setAutoCommit(cursorStatements.isEmpty());
+        } finally {
+            transactionActive = false;
+            rollbackOnly = false;
+            evictWrittenEntitiesFromSecondLevelCache();
+            invalidateWrittenTables();
+            actionQueue.clear();
+            persistenceContext.clear();
+            persister.clear();
+        }
+    }
+
+    private void verifyIsNotRollbackOnly() {
+        if (rollbackOnly) {
+            throw new IllegalStateException("Transaction is marked rollback-only after a failed flush");
+        }
+    }
+
+    private void verifyTransactionIsActive() {
+        if (!transactionActive) {
+            throw new IllegalStateException("There is no active transaction");
+        }
+    }
+
+    int getMaxInListSize() {
+        return maxInListSize;
+    }
+
+    /**
+     * Returns the session connection. It is acquired on the first call and is held until the session is closed.
+     */
+    @SneakyThrows
+    Connection getConnection() {
+        verifyIsOpen();
+        if (connection == null) {
+            log.trace("Acquiring a connection for the session");
+            var event = new ConnectionAcquisitionEvent();
+            event.begin();
+            var startNanos = System.nanoTime();
+            connection = dataSource.getConnection();
+            statistics.connectionAcquired(System.nanoTime() - startNanos);
+            if (event.shouldCommit()) {
+                event.dataSourceType = dataSource.getClass();
+                event.commit();
+            }
+            statementCache = new StatementCache(connection, statementCacheSize);
+        }
+        return connection;
+    }
+
+    /**
+     * Returns a prepared statement from the session statement cache. The statement must not be closed by the caller.
+     */
+    PreparedStatement prepareStatement(String sql) {
+        getConnection();
+        return statementCache.prepareStatement(sql);
+    }
+
+    /**
+     * Prepares a dedicated statement for a streamed query. Without an active transaction, auto-commit is turned off
+     * while any stream is open, since some drivers (e.g. PostgreSQL) fetch rows in chunks only inside a transaction.
+     * Committing while a stream is open may close its cursor.
+     */
+    @SneakyThrows
+    PreparedStatement prepareCursorStatement(String sql, int fetchSize) {
+        var cursorConnection = getConnection();
+        if (cursorStatements.isEmpty() && !transactionActive) {
+            log.trace("Disabling auto-commit for streamed queries");
+            cursorConnection.setAutoCommit(false);
+        }
+        var statement = cursorConnection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+        cursorStatements.add(statement);
+        statement.setFetchSize(fetchSize);
+        return statement;
+    }
+
+    @SneakyThrows
+    void closeCursorStatement(PreparedStatement statement) {
+        if (!cursorStatements.remove(statement)) {
+            return;
+        }
+        try {
+            statement.close();
+        } finally {
+            if (cursorStatements.isEmpty() && !transactionActive && !connection.getAutoCommit()) {
+                log.trace("Restoring auto-commit after streamed queries");
+                connection.commit();
+                connection.setAutoCommit(true);
+            }
+        }
+    }
+
+    @Override
+    @SneakyThrows
     public void close() {
         verifyIsOpen();
         log.info("Closing session");
-        flush();
-        persistenceContext.clear();
-        closed = true;
+        try {
+            for (var statement : List.copyOf(cursorStatements)) {
+                closeCursorStatement(statement);
+            }
+            if (transactionActive) {
+                log.warn("Closing a session with an active transaction. Rolling it back");
+                rollback();
+            } else {
+                flush();
+            }
+        } finally {
+            persistenceContext.clear();
+            persister.clear();
+            closed = true;
+            if (connection != null) {
+                statementCache.close();
+                connection.close();
+                connection = null;
+            }
+        }
     }
 
     void verifyIsOpen() {
@@ -115,6 +533,29 @@ public class StatefulSession implements Session {
         }
     }
 
+    /**
+     * Marks the beginning of a task of the async session on the current thread
+     */
+    void taskStarted() {
+        taskThread = Thread.currentThread();
+    }
+
+    void taskCompleted() {
+        taskThread = null;
+    }
+
+    /**
+     * Verifies that a lazy collection can be loaded on the current thread. A session confined to an executor may only
+     * be used by its tasks, since the persistence context is not thread-safe.
+     */
+    void verifyIsAccessibleForLazyLoading() {
+        verifyIsOpen();
+        if (executorConfined && taskThread != Thread.currentThread()) {
+            throw new IllegalStateException("Lazy collections of an async session can only be initialized inside "
+                    + "AsyncSession.withSession(). Initialize them there or load them with a FetchPlan");
+        }
+    }
+
     public boolean isClosed() {
         return closed;
     }
@@ -0,0 +1,66 @@
+package bibernate.session.impl;
+
+import lombok.SneakyThrows;
+import lombok.extern.log4j.Log4j2;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * An LRU cache of {@link PreparedStatement}s of a single connection keyed by SQL. Statements are reused across
+ * operations, so a database that supports server-side prepared statements parses and plans each query once.
+ * <p>
+ * Cached statements are owned by the cache: callers must not close them, and must close the result sets they open.
+ * The least recently used statement is closed when the cache exceeds its max size.
+ */
+@Log4j2
+class StatementCache {
+    private final Connection connection;
+    private final Map<String, PreparedStatement> statementsBySql;
+
+    StatementCache(Connection connection, int maxSize) {
+        this.connection = connection;
+        this.statementsBySql = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, PreparedStatement> eldest) {
+                if (size() > Math.max(1, maxSize)) {
+                    log.trace("Evicting statement from the cache: {}", eldest.getKey());
+                    closeQuietly(eldest.getValue());
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    @SneakyThrows
+    PreparedStatement prepareStatement(String sql) {
+        var statement = statementsBySql.get(sql);
+        if (statement == null || statement.isClosed()) {
+            log.trace("Preparing statement: {}", sql);
+            statement = connection.prepareStatement(sql);
+            statementsBySql.put(sql, statement);
+        } else {
+            log.trace("Reusing cached statement: {}", sql);
+            statement.clearParameters();
+        }
+        return statement;
+    }
+
+    void close() {
+        log.trace("Closing {} cached statement(s)", statementsBySql.size());
+        statementsBySql.values().forEach(this::closeQuietly);
+        statementsBySql.clear();
+    }
+
+    private void closeQuietly(PreparedStatement statement) {
+        try {
+            statement.close();
+        } catch (SQLException e) {
+            log.debug("Error while closing a cached statement", e);
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package bibernate.session.impl;
+
+import bibernate.metamodel.EntityAttribute;
+import bibernate.metamodel.EntityMetadata;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import static bibernate.util.SqlUtil.commaSeparatedParams;
+
+/**
+ * Conditions on entity attributes that are combined with {@code AND}, together with their params. A
+ * {@link bibernate.metamodel.AttributeKind#TO_ONE} attribute is compared with either a related entity or its id.
+ * <p>
+ * {@code IN} conditions with more values than a statement may bind are split into chunks, and the clause is then
+ * rendered as several clauses, one per combination of chunks. Every row matches at most one of them.
+ */
+class WhereClause {
+    private final EntityMetadata<?> metadata;
+    private final List<Condition> conditions = new ArrayList<>();
+    /**
+     * Whether there is an {@code IN} condition with no values
+     */
+    private boolean matchingNoRows;
+
+    WhereClause(EntityMetadata<?> metadata) {
+        this.metadata = metadata;
+    }
+
+    void addEquals(String attributeName, Object value) {
+        var attribute = getColumnAttribute(metadata, attributeName);
+        if (value == null) {
+            conditions.add(new Condition(attribute.getColumnName() + " IS NULL", List.of(), false));
+        } else {
+            conditions.add(new Condition(attribute.getColumnName() + " = ?",
+                    List.of(attribute.toColumnValue(value)), false));
+        }
+    }
+
+    void addIn(String attributeName, Collection<?> values) {
+        var attribute = getColumnAttribute(metadata, attributeName);
+        if (values.isEmpty()) {
+            matchingNoRows = true;
+            return;
+        }
+        var columnValues = new ArrayList<>(values.size());
+        for (var value : values) {
+            columnValues.add(attribute.toColumnValue(value));
+        }
+        conditions.add(new Condition(attribute.getColumnName(), columnValues, true));
+    }
+
+    boolean isEmpty() {
+        return conditions.isEmpty();
+    }
+
+    boolean isMatchingNoRows() {
+        return matchingNoRows;
+    }
+
+    /**
+     * Renders the clause as a single fragment. It is used where the rows cannot be selected in chunks, e.g. with
+     * {@code ORDER BY} and {@code LIMIT}.
+     *
+     * @throws IllegalArgumentException if an {@code IN} list has more than {@code maxInListSize} values
+     */
+    SqlWithParams toSingleChunk(int maxInListSize) {
+        for (var condition : conditions) {
+            if (condition.in() && condition.params().size() > maxInListSize) {
+                throw new IllegalArgumentException("IN list of " + condition.sql() + " has "
+                        + condition.params().size() + " values, which exceeds the max IN list size " + maxInListSize);
+            }
+        }
+        return toChunks(maxInListSize).get(0);
+    }
+
+    /**
+     * Renders the clause with {@code IN} lists of up to {@code maxInListSize} values each.
+     *
+     * @return clauses that together match the same rows as the whole clause
+     */
+    List<SqlWithParams> toChunks(int maxInListSize) {
+        var chunkSize = Math.max(1, maxInListSize);
+        var chunks = List.of(new SqlWithParams("", List.of()));
+        for (var condition : conditions) {
+            var nextChunks = new ArrayList<SqlWithParams>();
+            for (var chunk : chunks) {
+                if (!condition.in()) {
+                    nextChunks.add(and(chunk, condition.sql(), condition.params()));
+                    continue;
+                }
+                var values = condition.params();
+                for (int from = 0; from < values.size(); from += chunkSize) {
+                    var valueChunk = values.subList(from, Math.min(from + chunkSize, values.size()));
+                    nextChunks.add(and(chunk, condition.sql() + " IN (" + commaSeparatedParams(valueChunk.size())
+                            + ")", valueChunk));
+                }
+            }
+            chunks = nextChunks;
+        }
+        return chunks;
+    }
+
+    private static SqlWithParams and(SqlWithParams clause, String conditionSql, List<Object> conditionParams) {
+        var params = new ArrayList<>(clause.params());
+        params.addAll(conditionParams);
+        var sql = clause.sql().isEmpty() ? conditionSql : clause.sql() + " AND " + conditionSql;
+        return new SqlWithParams(sql, params);
+    }
+
+    static EntityAttribute getColumnAttribute(EntityMetadata<?> metadata, String attributeName) {
+        var attribute = metadata.getAttribute(attributeName);
+        if (!attribute.isColumn()) {
+            throw new IllegalArgumentException("Attribute " + attribute + " is not mapped to a column");
+        }
+        return attribute;
+    }
+
+    /**
+     * A condition and its params. The SQL of an {@code IN} condition is only the column name
+     */
+    private record Condition(String sql, List<Object> params, boolean in) {
+    }
+}
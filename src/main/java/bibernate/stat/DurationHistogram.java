@@ -0,0 +1,87 @@
+package bibernate.stat;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A lock-free histogram of durations with fixed exponential buckets from 100 us to 10 s. It keeps the count, the total
+ * and the max duration as well.
+ */
+public class DurationHistogram {
+    private static final List<Duration> BUCKET_UPPER_BOUNDS = List.of(Duration.ofNanos(100_000), Duration.ofMillis(1),
+            Duration.ofMillis(10), Duration.ofMillis(100), Duration.ofSeconds(1), Duration.ofSeconds(10));
+
+    private final long[] upperBoundsNanos = BUCKET_UPPER_BOUNDS.stream().mapToLong(Duration::toNanos).toArray();
+    private final LongAdder[] bucketCounts = new LongAdder[upperBoundsNanos.length + 1];
+    private final LongAdder totalNanos = new LongAdder();
+    private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+    public DurationHistogram() {
+        for (int i = 0; i < bucketCounts.length; i++) {
+            bucketCounts[i] = new LongAdder();
+        }
+    }
+
+    public void record(long nanos) {
+        var bucket = 0;
+        while (bucket < upperBoundsNanos.length && nanos > upperBoundsNanos[bucket]) {
+            bucket++;
+        }
+        bucketCounts[bucket].increment();
+        totalNanos.add(nanos);
+        maxNanos.accumulate(nanos);
+    }
+
+    public long getCount() {
+        var count = 0L;
+        for (var bucketCount : bucketCounts) {
+            count += bucketCount.sum();
+        }
+        return count;
+    }
+
+    public Duration getTotal() {
+        return Duration.ofNanos(totalNanos.sum());
+    }
+
+    public Duration getMax() {
+        return Duration.ofNanos(maxNanos.get());
+    }
+
+    /**
+     * Returns counts by bucket. Keys are upper bounds, e.g. {@code <= 1 ms}, and the last key is {@code > 10 s}.
+     */
+    public Map<String, Long> getBuckets() {
+        var buckets = new LinkedHashMap<String, Long>();
+        for (int i = 0; i < upperBoundsNanos.length; i++) {
+            buckets.put("<= " + format(BUCKET_UPPER_BOUNDS.get(i)), bucketCounts[i].sum());
+        }
+        buckets.put("> " + format(BUCKET_UPPER_BOUNDS.get(upperBoundsNanos.length - 1)),
+                bucketCounts[upperBoundsNanos.length].sum());
+        return buckets;
+    }
+
+    private static String format(Duration duration) {
+        if (duration.toMillis() == 0) {
+            return duration.toNanos() / 1000 + " us";
+        }
+        return duration.toMillis() < 1000 ? duration.toMillis() + " ms" : duration.toSeconds() + " s";
+    }
+
+    public void reset() {
+        for (var bucketCount : bucketCounts) {
+            bucketCount.reset();
+        }
+        totalNanos.reset();
+        maxNanos.reset();
+    }
+
+    @Override
+    public String toString() {
+        return "DurationHistogram(count=" + getCount() + ", total=" + getTotal() + ", max=" + getMax() + ")";
+    }
+}
@@ -0,0 +1,25 @@
+package bibernate.stat;
+
+/**
+ * Counters of a single entity type
+ */
+public interface EntityStatistics {
+    long getLoadCount();
+
+    long getInsertCount();
+
+    long getUpdateCount();
+
+    long getDeleteCount();
+
+    /**
+     * Number of lookups by id served by the persistence context
+     */
+    long getContextHitCount();
+
+    long getContextMissCount();
+
+    long getSecondLevelCacheHitCount();
+
+    long getSecondLevelCacheMissCount();
+}
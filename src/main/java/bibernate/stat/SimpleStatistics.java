@@ -0,0 +1,351 @@
+package bibernate.stat;
+
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToLongFunction;
+
+/**
+ * {@link Statistics} based on {@link LongAdder}s, so sessions running in parallel update counters without contention.
+ * Recording methods do nothing when statistics are disabled.
+ */
+public class SimpleStatistics implements Statistics, StatisticsMXBean {
+    private final boolean enabled;
+    private final Map<StatementKind, LongAdder> statementCounts = new EnumMap<>(StatementKind.class);
+    private final LongAdder batchCount = new LongAdder();
+    private final LongAdder queryCacheHitCount = new LongAdder();
+    private final LongAdder queryCacheMissCount = new LongAdder();
+    private final LongAdder lazyListInitializationCount = new LongAdder();
+    private final DurationHistogram flushDurations = new DurationHistogram();
+    private final DurationHistogram connectionAcquisitionDurations = new DurationHistogram();
+    private final Map<Class<?>, Counters> countersByEntityType = new ConcurrentHashMap<>();
+
+    public SimpleStatistics(boolean enabled) {
+        this.enabled = enabled;
+        for (var kind : StatementKind.values()) {
+            statementCounts.put(kind, new LongAdder());
+        }
+    }
+
+    public void statementsExecuted(StatementKind kind, int count) {
+        if (enabled) {
+            statementCounts.get(kind).add(count);
+        }
+    }
+
+    public void batchExecuted() {
+        if (enabled) {
+            batchCount.increment();
+        }
+    }
+
+    public void entityLoaded(Class<?> entityType) {
+        if (enabled) {
+            countersOf(entityType).loadCount.increment();
+        }
+    }
+
+    public void entitiesInserted(Class<?> entityType, int count) {
+        if (enabled) {
+            countersOf(entityType).insertCount.add(count);
+        }
+    }
+
+    public void entitiesUpdated(Class<?> entityType, int count) {
+        if (enabled) {
+            countersOf(entityType).updateCount.add(count);
+        }
+    }
+
+    public void entitiesDeleted(Class<?> entityType, int count) {
+        if (enabled) {
+            countersOf(entityType).deleteCount.add(count);
+        }
+    }
+
+    public void contextHit(Class<?> entityType) {
+        if (enabled) {
+            countersOf(entityType).contextHitCount.increment();
+        }
+    }
+
+    public void contextMiss(Class<?> entityType) {
+        if (enabled) {
+            countersOf(entityType).contextMissCount.increment();
+        }
+    }
+
+    public void secondLevelCacheHit(Class<?> entityType) {
+        if (enabled) {
+            countersOf(entityType).secondLevelCacheHitCount.increment();
+        }
+    }
+
+    public void secondLevelCacheMiss(Class<?> entityType) {
+        if (enabled) {
+            countersOf(entityType).secondLevelCacheMissCount.increment();
+        }
+    }
+
+    public void queryCacheHit() {
+        if (enabled) {
+            queryCacheHitCount.increment();
+        }
+    }
+
+    public void queryCacheMiss() {
+        if (enabled) {
+            queryCacheMissCount.increment();
+        }
+    }
+
+    public void lazyListsInitialized(int count) {
+        if (enabled) {
+            lazyListInitializationCount.add(count);
+        }
+    }
+
+    public void flushed(long durationNanos) {
+        if (enabled) {
+            flushDurations.record(durationNanos);
+        }
+    }
+
+    public void connectionAcquired(long durationNanos) {
+        if (enabled) {
+            connectionAcquisitionDurations.record(durationNanos);
+        }
+    }
+
+    private Counters countersOf(Class<?> entityType) {
+        var counters = countersByEntityType.get(entityType);
+        return counters != null ? counters : countersByEntityType.computeIfAbsent(entityType, type -> new Counters());
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public long getStatementCount(StatementKind kind) {
+        return statementCounts.get(kind).sum();
+    }
+
+    @Override
+    public Map<String, Long> getStatementCounts() {
+        var counts = new LinkedHashMap<String, Long>();
+        statementCounts.forEach((kind, count) -> counts.put(kind.name(), count.sum()));
+        return counts;
+    }
+
+    @Override
+    public long getBatchCount() {
+        return batchCount.sum();
+    }
+
+    @Override
+    public long getEntityLoadCount() {
+        return sum(Counters::getLoadCount);
+    }
+
+    @Override
+    public long getEntityInsertCount() {
+        return sum(Counters::getInsertCount);
+    }
+
+    @Override
+    public long getEntityUpdateCount() {
+        return sum(Counters::getUpdateCount);
+    }
+
+    @Override
+    public long getEntityDeleteCount() {
+        return sum(Counters::getDeleteCount);
+    }
+
+    @Override
+    public long getContextHitCount() {
+        return sum(Counters::getContextHitCount);
+    }
+
+    @Override
+    public long getContextMissCount() {
+        return sum(Counters::getContextMissCount);
+    }
+
+    @Override
+    public long getSecondLevelCacheHitCount() {
+        return sum(Counters::getSecondLevelCacheHitCount);
+    }
+
+    @Override
+    public long getSecondLevelCacheMissCount() {
+        return sum(Counters::getSecondLevelCacheMissCount);
+    }
+
+    @Override
+    public long getQueryCacheHitCount() {
+        return queryCacheHitCount.sum();
+    }
+
+    @Override
+    public long getQueryCacheMissCount() {
+        return queryCacheMissCount.sum();
+    }
+
+    private long sum(ToLongFunction<Counters> counter) {
+        return countersByEntityType.values().stream().mapToLong(counter).sum();
+    }
+
+    @Override
+    public long getLazyListInitializationCount() {
+        return lazyListInitializationCount.sum();
+    }
+
+    @Override
+    public long getFlushCount() {
+        return flushDurations.getCount();
+    }
+
+    @Override
+    public DurationHistogram getFlushDurations() {
+        return flushDurations;
+    }
+
+    @Override
+    public long getFlushMaxMillis() {
+        return flushDurations.getMax().toMillis();
+    }
+
+    @Override
+    public Map<String, Long> getFlushDurationHistogram() {
+        return flushDurations.getBuckets();
+    }
+
+    @Override
+    public DurationHistogram getConnectionAcquisitionDurations() {
+        return connectionAcquisitionDurations;
+    }
+
+    @Override
+    public long getConnectionAcquisitionMaxMillis() {
+        return connectionAcquisitionDurations.getMax().toMillis();
+    }
+
+    @Override
+    public Map<String, Long> getConnectionAcquisitionHistogram() {
+        return connectionAcquisitionDurations.getBuckets();
+    }
+
+    @Override
+    public EntityStatistics getEntityStatistics(Class<?> entityType) {
+        return countersOf(entityType);
+    }
+
+    @Override
+    public Map<Class<?>, EntityStatistics> getEntityStatistics() {
+        return Map.copyOf(countersByEntityType);
+    }
+
+    @Override
+    public Map<String, Long> getEntityLoadCounts() {
+        return countsByEntityName(Counters::getLoadCount);
+    }
+
+    @Override
+    public Map<String, Long> getEntityInsertCounts() {
+        return countsByEntityName(Counters::getInsertCount);
+    }
+
+    @Override
+    public Map<String, Long> getEntityUpdateCounts() {
+        return countsByEntityName(Counters::getUpdateCount);
+    }
+
+    @Override
+    public Map<String, Long> getEntityDeleteCounts() {
+        return countsByEntityName(Counters::getDeleteCount);
+    }
+
+    private Map<String, Long> countsByEntityName(ToLongFunction<Counters> counter) {
+        var counts = new LinkedHashMap<String, Long>();
+        countersByEntityType.forEach((type, counters) -> counts.put(type.getName(), counter.applyAsLong(counters)));
+        return counts;
+    }
+
+    @Override
+    public void reset() {
+        statementCounts.values().forEach(LongAdder::reset);
+        batchCount.reset();
+        queryCacheHitCount.reset();
+        queryCacheMissCount.reset();
+        lazyListInitializationCount.reset();
+        flushDurations.reset();
+        connectionAcquisitionDurations.reset();
+        countersByEntityType.clear();
+    }
+
+    /**
+     * Counters of a single entity type
+     */
+    private static class Counters implements EntityStatistics {
+        private final LongAdder loadCount = new LongAdder();
+        private final LongAdder insertCount = new LongAdder();
+        private final LongAdder updateCount = new LongAdder();
+        private final LongAdder deleteCount = new LongAdder();
+        private final LongAdder contextHitCount = new LongAdder();
+        private final LongAdder contextMissCount = new LongAdder();
+        private final LongAdder secondLevelCacheHitCount = new LongAdder();
+        private final LongAdder secondLevelCacheMissCount = new LongAdder();
+
+        @Override
+        public long getLoadCount() {
+            return loadCount.sum();
+        }
+
+        @Override
+        public long getInsertCount() {
+            return insertCount.sum();
+        }
+
+        @Override
+        public long getUpdateCount() {
+            return updateCount.sum();
+        }
+
+        @Override
+        public long getDeleteCount() {
+            return deleteCount.sum();
+        }
+
+        @Override
+        public long getContextHitCount() {
+            return contextHitCount.sum();
+        }
+
+        @Override
+        public long getContextMissCount() {
+            return contextMissCount.sum();
+        }
+
+        @Override
+        public long getSecondLevelCacheHitCount() {
+            return secondLevelCacheHitCount.sum();
+        }
+
+        @Override
+        public long getSecondLevelCacheMissCount() {
+            return secondLevelCacheMissCount.sum();
+        }
+
+        @Override
+        public String toString() {
+            return "EntityStatistics(loads=" + getLoadCount() + ", inserts=" + getInsertCount() + ", updates="
+                    + getUpdateCount() + ", deletes=" + getDeleteCount() + ", contextHits=" + getContextHitCount()
+                    + ", contextMisses=" + getContextMissCount() + ")";
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package bibernate.stat;
+
+/**
+ * A kind of SQL statement counted by {@link Statistics}
+ */
+public enum StatementKind {
+    SELECT,
+    INSERT,
+    UPDATE,
+    DELETE
+}
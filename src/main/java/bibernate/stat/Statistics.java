@@ -0,0 +1,59 @@
+package bibernate.stat;
+
+import java.util.Map;
+
+/**
+ * Runtime statistics of a {@link bibernate.session.SessionFactory} aggregated over all its sessions. Counters are
+ * collected only when {@link bibernate.session.Settings#isStatisticsEnabled()} is set, and can be exported over JMX
+ * with {@link bibernate.session.Settings#isStatisticsJmxEnabled()}.
+ */
+public interface Statistics {
+    boolean isEnabled();
+
+    /**
+     * Number of executed statements of a given kind. Every row of a JDBC batch counts as a statement
+     */
+    long getStatementCount(StatementKind kind);
+
+    long getBatchCount();
+
+    long getEntityLoadCount();
+
+    long getEntityInsertCount();
+
+    long getEntityUpdateCount();
+
+    long getEntityDeleteCount();
+
+    /**
+     * Number of lookups by id served by the persistence context
+     */
+    long getContextHitCount();
+
+    long getContextMissCount();
+
+    long getSecondLevelCacheHitCount();
+
+    long getSecondLevelCacheMissCount();
+
+    /**
+     * Number of queries served by the {@link bibernate.cache.QueryCache}
+     */
+    long getQueryCacheHitCount();
+
+    long getQueryCacheMissCount();
+
+    long getLazyListInitializationCount();
+
+    long getFlushCount();
+
+    DurationHistogram getFlushDurations();
+
+    DurationHistogram getConnectionAcquisitionDurations();
+
+    EntityStatistics getEntityStatistics(Class<?> entityType);
+
+    Map<Class<?>, EntityStatistics> getEntityStatistics();
+
+    void reset();
+}
@@ -0,0 +1,54 @@
+package bibernate.stat;
+
+import java.util.Map;
+
+/**
+ * A JMX view of {@link Statistics}. Breakdowns are exposed as maps keyed by statement kind or entity name.
+ */
+public interface StatisticsMXBean {
+    Map<String, Long> getStatementCounts();
+
+    long getBatchCount();
+
+    long getEntityLoadCount();
+
+    long getEntityInsertCount();
+
+    long getEntityUpdateCount();
+
+    long getEntityDeleteCount();
+
+    long getContextHitCount();
+
+    long getContextMissCount();
+
+    long getSecondLevelCacheHitCount();
+
+    long getSecondLevelCacheMissCount();
+
+    long getQueryCacheHitCount();
+
+    long getQueryCacheMissCount();
+
+    long getLazyListInitializationCount();
+
+    long getFlushCount();
+
+    long getFlushMaxMillis();
+
+    Map<String, Long> getFlushDurationHistogram();
+
+    long getConnectionAcquisitionMaxMillis();
+
+    Map<String, Long> getConnectionAcquisitionHistogram();
+
+    Map<String, Long> getEntityLoadCounts();
+
+    Map<String, Long> getEntityInsertCounts();
+
+    Map<String, Long> getEntityUpdateCounts();
+
+    Map<String, Long> getEntityDeleteCounts();
+
+    void reset();
+}
@@ -0,0 +1,36 @@
+package bibernate.tracking;
+
+/**
+ * An entity that records its own changes. Instead of comparing a snapshot of every managed entity on each flush, the
+ * session visits only the entities whose tracker has recorded a change.
+ * <p>
+ * There is no build-time enhancement, so the contract is implemented by hand. The entity holds a {@link DirtyTracker}
+ * in a {@code transient} field, and <b>every</b> setter of a mapped attribute, including {@code ManyToOne} references,
+ * calls {@link DirtyTracker#markDirty(String)} with the field name after the assignment. Setters generated by Lombok
+ * do not do that, so they must be written explicitly. A change that bypasses the setters (e.g. a direct field write
+ * or a setter that forgets to call the tracker) is never flushed. See {@code demo.entity.Note}.
+ * <pre>
+ * &#64;Table("persons")
+ * public class Person implements DirtyTrackable {
+ *     private final transient DirtyTracker dirtyTracker = new DirtyTracker(Person.class);
+ *     &#64;Id
+ *     private Long id;
+ *     &#64;Column("first_name")
+ *     private String firstName;
+ *
+ *     &#64;Override
+ *     public DirtyTracker getDirtyTracker() {
+ *         return dirtyTracker;
+ *     }
+ *
+ *     public void setFirstName(String firstName) {
+ *         this.firstName = firstName;
+ *         dirtyTracker.markDirty("firstName");
+ *     }
+ *     // the same for setId(...) and every other mapped attribute
+ * }
+ * </pre>
+ */
+public interface DirtyTrackable {
+    DirtyTracker getDirtyTracker();
+}
@@ -0,0 +1,67 @@
+package bibernate.tracking;
+
+import bibernate.util.EntityUtil;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Records changed attributes of a {@link DirtyTrackable} entity in a bitset. Bit positions are resolved from attribute
+ * names once per entity type.
+ */
+public final class DirtyTracker {
+    private static final ClassValue<Map<String, Integer>> ATTRIBUTE_INDEXES = new ClassValue<>() {
+        @Override
+        protected Map<String, Integer> computeValue(Class<?> entityType) {
+            var fields = Arrays.stream(entityType.getDeclaredFields()).filter(EntityUtil::isPersistentField).toList();
+            var indexes = new HashMap<String, Integer>();
+            for (int i = 0; i < fields.size(); i++) {
+                indexes.put(fields.get(i).getName(), i);
+            }
+            return Map.copyOf(indexes);
+        }
+    };
+
+    private final Map<String, Integer> attributeIndexes;
+    private final BitSet dirtyAttributes = new BitSet();
+    private Runnable firstChangeListener;
+
+    public DirtyTracker(Class<?> entityType) {
+        this.attributeIndexes = ATTRIBUTE_INDEXES.get(entityType);
+    }
+
+    public void markDirty(String attributeName) {
+        var index = attributeIndexes.get(attributeName);
+        if (index == null) {
+            throw new IllegalArgumentException("Unknown attribute " + attributeName);
+        }
+        var wasClean = dirtyAttributes.isEmpty();
+        dirtyAttributes.set(index);
+        if (wasClean && firstChangeListener != null) {
+            firstChangeListener.run();
+        }
+    }
+
+    public boolean isDirty() {
+        return !dirtyAttributes.isEmpty();
+    }
+
+    public boolean isDirty(String attributeName) {
+        var index = attributeIndexes.get(attributeName);
+        return index != null && dirtyAttributes.get(index);
+    }
+
+    public void clear() {
+        dirtyAttributes.clear();
+    }
+
+    /**
+     * Sets a callback that is run when the entity changes for the first time after {@link #clear()}. It is used by the
+     * persistence context to collect dirty entities, and is reset with {@code null} when the entity is detached.
+     */
+    public void setFirstChangeListener(Runnable firstChangeListener) {
+        this.firstChangeListener = firstChangeListener;
+    }
+}
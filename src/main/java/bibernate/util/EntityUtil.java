@@ -1,17 +1,14 @@
 package bibernate.util;
 
 import bibernate.annotation.*;
-import lombok.SneakyThrows;
-import lombok.extern.log4j.Log4j2;
+import bibernate.tracking.DirtyTracker;
 
 import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
 import java.lang.reflect.ParameterizedType;
-import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Optional;
-import java.util.function.Predicate;
 
-@Log4j2
 public final class EntityUtil {
     private EntityUtil() {
     }
@@ -22,11 +19,6 @@ public final class EntityUtil {
                 .orElse(field.getName());
     }
 
-    public static String resolveIdColumnName(Class<?> entityType) {
-        var field = getIdField(entityType);
-        return resolveColumnName(field);
-    }
-
     public static <T> String resolveTableName(Class<T> entityType) {
         return Optional.ofNullable(entityType.getAnnotation(Table.class))
                 .map(Table::value)
@@ -40,26 +32,20 @@ public final class EntityUtil {
                 .orElseThrow(() -> new RuntimeException("Cannot find a field marked with @Id in class " + entityType.getSimpleName()));
     }
 
-    @SneakyThrows
-    public static Object getId(Object entity) {
-        var entityType = entity.getClass();
-        var idField = getIdField(entityType);
-        idField.setAccessible(true);
-        return idField.get(entity);
+    /**
+     * Checks whether a field is mapped at all. Static, transient and synthetic fields, and the {@link DirtyTracker}
+     * of an entity are not mapped.
+     */
+    public static boolean isPersistentField(Field field) {
+        var modifiers = field.getModifiers();
+        return !Modifier.isStatic(modifiers) && !Modifier.isTransient(modifiers) && !field.isSynthetic()
+                && field.getType() != DirtyTracker.class;
     }
 
     public static boolean isIdField(Field field) {
         return field.isAnnotationPresent(Id.class);
     }
 
-    public static boolean isColumnField(Field field) {
-        return !isEntityCollectionField(field);
-    }
-
-    public static boolean isSimpleColumnField(Field field) {
-        return !isEntityField(field) && !isEntityCollectionField(field);
-    }
-
     public static boolean isEntityField(Field field) {
         return field.isAnnotationPresent(ManyToOne.class);
     }
@@ -75,25 +61,6 @@ public final class EntityUtil {
                 .orElseThrow(() -> new RuntimeException("Cannon find related field between in " + toEntity + " for " + fromEntity));
     }
 
-    public static Field[] getFields(Class<?> entityType, Predicate<Field> fieldPredicate) {
-        return Arrays.stream(entityType.getDeclaredFields())
-                .filter(fieldPredicate)
-                .toArray(Field[]::new);
-    }
-
-    public static Field[] getColumnFields(Class<?> entityType) {
-        return getFields(entityType, EntityUtil::isColumnField);
-    }
-
-    public static Field[] getUpdatableFields(Class<?> entityType) {
-        Predicate<Field> updatableFieldPredicate = f -> isColumnField(f) && !isIdField(f);
-        return getFields(entityType, updatableFieldPredicate);
-    }
-
-    public static Field[] getInsertableFields(Class<?> entityType) {
-        return getFields(entityType, EntityUtil::isColumnField);
-    }
-
     public static Class<?> getEntityCollectionElementType(Field field) {
         var parameterizedType = (ParameterizedType) field.getGenericType();
         var typeArguments = parameterizedType.getActualTypeArguments();
@@ -101,25 +68,4 @@ public final class EntityUtil {
         var relatedEntityType = (Class<?>) actualTypeArgument;
         return relatedEntityType;
     }
-
-
-    @SneakyThrows
-    public static Object[] entityToSnapshot(Object entity) {
-        log.trace("Creating a snapshot for entity {}", entity);
-        var columnValues = new ArrayList<>();
-        for (var f : entity.getClass().getDeclaredFields()) {
-            f.setAccessible(true);
-            if (isSimpleColumnField(f)) {
-                var columnValue = f.get(entity);
-                columnValues.add(columnValue);
-            } else if (isEntityField(f)) {
-                var relatedEntity = f.get(entity);
-                var relatedEntityId = getId(relatedEntity);
-                columnValues.add(relatedEntityId);
-            }
-        }
-        var snapshot = columnValues.toArray();
-        log.trace("Created a snapshot {}", Arrays.toString(snapshot));
-        return snapshot;
-    }
 }
@@ -1,35 +1,64 @@
 package bibernate.util;
 
-import java.util.Arrays;
-import java.util.stream.Collectors;
+import bibernate.metamodel.EntityAttribute;
+import bibernate.metamodel.EntityMetadata;
 
-import static bibernate.util.EntityUtil.getInsertableFields;
-import static bibernate.util.EntityUtil.getUpdatableFields;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
 
 public class SqlUtil { 
     public static final String INSERT_INTO_TABLE_VALUES_TEMPLATE = "INSERT INTO %s(%s) VALUES(%s);";
     public static final String SELECT_FROM_TABLE_BY_COLUMN_QUERY_TEMPLATE = "SELECT * FROM %s WHERE %s = ?;";
+    public static final String SELECT_FROM_TABLE_WHERE_COLUMN_IN_QUERY_TEMPLATE = "SELECT * FROM %s WHERE %s IN (%s);";
+    public static final String SELECT_COLUMNS_FROM_WHERE_COLUMN_QUERY_TEMPLATE = "SELECT %s FROM %s WHERE %s = ?;";
     public static final String UPDATE_TABLE_SET_VALUES_BY_COLUMN_TEMPLATE = "UPDATE %s SET %s WHERE %s;";
     public static final String DELETE_FROM_TABLE_BY_COLUMN = "DELETE FROM %s WHERE %s = ?;";
+    public static final String UPDATE_TABLE_SET_VALUES_TEMPLATE = "UPDATE %s SET %s;";
+    public static final String DELETE_FROM_TABLE_WHERE_TEMPLATE = "DELETE FROM %s WHERE %s;";
+    public static final String DELETE_FROM_TABLE_TEMPLATE = "DELETE FROM %s;";
+    public static final String SELECT_COLUMNS_FROM_TABLE_TEMPLATE = "SELECT %s FROM %s";
+    public static final String NEXT_VALUE_FOR_SEQUENCE_TEMPLATE = "SELECT NEXT VALUE FOR %s;";
+    public static final String POSTGRES_NEXT_VALUE_FOR_SEQUENCE_TEMPLATE = "SELECT nextval('%s');";
+
+    public static String commaSeparatedInsertableColumns(EntityMetadata<?> metadata) {
+        return metadata.getColumnAttributes().stream()
+                .map(EntityAttribute::getColumnName)
+                .collect(Collectors.joining(", "));
+    }
+
+    /**
+     * Returns column attributes of the entity qualified with a table alias, e.g. {@code t0.id, t0.first_name}.
+     */
+    public static String commaSeparatedColumns(EntityMetadata<?> metadata, String tableAlias) {
+        return metadata.getColumnAttributes().stream()
+                .map(a -> tableAlias + "." + a.getColumnName())
+                .collect(Collectors.joining(", "));
+    }
 
-    public static String commaSeparatedInsertableColumns(Class<?> entityType) {
-        var insertableFields = getInsertableFields(entityType);
-        return Arrays.stream(insertableFields)
-                .map(EntityUtil::resolveColumnName)
+    public static String commaSeparatedColumns(List<EntityAttribute> attributes) {
+        return attributes.stream()
+                .map(EntityAttribute::getColumnName)
                 .collect(Collectors.joining(", "));
     }
 
-    public static String commaSeparatedInsertableParams(Class<?> entityType) {
-        var insertableFields = getInsertableFields(entityType);
-        return Arrays.stream(insertableFields)
-                .map(f -> "?")
+    public static String commaSeparatedInsertableParams(EntityMetadata<?> metadata) {
+        return metadata.getColumnAttributes().stream()
+                .map(a -> "?")
                 .collect(Collectors.joining(","));
     }
 
-    public static String commaSeparatedUpdatableColumnSetters(Class<?> entityType) {
-        var updatableFields = getUpdatableFields(entityType);
-        return Arrays.stream(updatableFields)
-                .map(EntityUtil::resolveColumnName)
+    public static String commaSeparatedParams(int count) {
+        return String.join(",", Collections.nCopies(count, "?"));
+    }
+
+    public static String commaSeparatedUpdatableColumnSetters(EntityMetadata<?> metadata) {
+        return commaSeparatedColumnSetters(metadata.getUpdatableAttributes());
+    }
+
+    public static String commaSeparatedColumnSetters(List<EntityAttribute> attributes) {
+        return attributes.stream()
+                .map(EntityAttribute::getColumnName)
                 .map(column -> column + " = ?")
                 .collect(Collectors.joining(", "));
     }
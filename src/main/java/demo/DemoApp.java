@@ -46,7 +46,6 @@ public class DemoApp {
 
     private static Person createNewPerson() {
         var person = new Person();
-        person.setId(6L);
         person.setFirstName("Josh");
         person.setLastName("Long");
         return person;
@@ -1,14 +1,26 @@
 package demo.entity;
 
+import bibernate.annotation.Cacheable;
 import bibernate.annotation.Column;
 import bibernate.annotation.Id;
 import bibernate.annotation.ManyToOne;
 import bibernate.annotation.Table;
+import bibernate.tracking.DirtyTrackable;
+import bibernate.tracking.DirtyTracker;
 import lombok.Data;
+import lombok.ToString;
 
+/**
+ * A note that tracks its own changes. Setters are written by hand, since the ones generated by Lombok do not report
+ * changes to the {@link DirtyTracker}.
+ */
 @Data
+@Cacheable
 @Table("notes")
-public class Note {
+public class Note implements DirtyTrackable {
+    @ToString.Exclude
+    private final transient DirtyTracker dirtyTracker = new DirtyTracker(Note.class);
+
     @Id
     private Long id;
     
@@ -17,4 +29,19 @@ public class Note {
     @ManyToOne
     @Column("person_id")
     private Person person;
+
+    public void setId(Long id) {
+        this.id = id;
+        dirtyTracker.markDirty("id");
+    }
+
+    public void setBody(String body) {
+        this.body = body;
+        dirtyTracker.markDirty("body");
+    }
+
+    public void setPerson(Person person) {
+        this.person = person;
+        dirtyTracker.markDirty("person");
+    }
 }
@@ -1,6 +1,8 @@
 package demo.entity;
 
+import bibernate.annotation.Cacheable;
 import bibernate.annotation.Column;
+import bibernate.annotation.GeneratedValue;
 import bibernate.annotation.Id;
 import bibernate.annotation.OneToMany;
 import bibernate.annotation.Table;
@@ -11,10 +13,12 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Data
+@Cacheable
 @ToString(exclude = "notes")
 @Table("persons")
 public class Person {
     @Id
+    @GeneratedValue(sequence = "persons_seq")
     private Long id;
 
     @Column("first_name")
@@ -5,6 +5,8 @@ CREATE TABLE persons
     last_name  VARCHAR(32)
 );
 
+CREATE SEQUENCE persons_seq START WITH 6 INCREMENT BY 50;
+
 CREATE TABLE notes
 (
     id        BIGINT PRIMARY KEY,
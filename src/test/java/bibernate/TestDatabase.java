@@ -0,0 +1,28 @@
+package bibernate;
+
+import lombok.SneakyThrows;
+import org.h2.jdbcx.JdbcDataSource;
+
+import javax.sql.DataSource;
+
+/**
+ * Creates in-memory H2 databases initialized with the demo schema and data.
+ */
+public final class TestDatabase {
+    private TestDatabase() {
+    }
+
+    /**
+     * Creates a new database that lives until the JVM exits, so it can be shared by several connections.
+     */
+    @SneakyThrows
+    public static DataSource create(String name) {
+        var dataSource = new JdbcDataSource();
+        dataSource.setUrl("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1");
+        dataSource.setUser("sa");
+        try (var connection = dataSource.getConnection(); var statement = connection.createStatement()) {
+            statement.execute("RUNSCRIPT FROM 'classpath:db/init.sql'");
+        }
+        return dataSource;
+    }
+}
@@ -0,0 +1,105 @@
+package bibernate.cache;
+
+import bibernate.TestDatabase;
+import bibernate.session.Settings;
+import bibernate.session.impl.SimpleSessionFactory;
+import demo.entity.Note;
+import demo.entity.Person;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SecondLevelCacheTest {
+    private SimpleSessionFactory sessionFactory;
+
+    @BeforeEach
+    void setUp() {
+        var dataSource = TestDatabase.create("second_level_cache_" + System.nanoTime());
+        sessionFactory = new SimpleSessionFactory(dataSource, Settings.builder()
+                .secondLevelCacheEnabled(true)
+                .build());
+    }
+
+    @Test
+    void rolledBackInsertIsNotCached() {
+        var writer = sessionFactory.openSession();
+        writer.beginTransaction();
+        var person = writer.find(Person.class, 1L);
+        var note = new Note();
+        note.setId(100L);
+        note.setBody("uncommitted");
+        note.setPerson(person);
+        writer.persist(note);
+        writer.flush();
+        assertEquals(4, person.getNotes().size());
+
+        var reader = sessionFactory.openSession();
+        assertTrue(reader.findAll(Note.class, List.of(100L)).isEmpty());
+        reader.close();
+
+        writer.rollback();
+        writer.close();
+
+        reader = sessionFactory.openSession();
+        assertTrue(reader.findAll(Note.class, List.of(100L)).isEmpty());
+        reader.close();
+    }
+
+    @Test
+    void committedInsertIsVisibleToOtherSessions() {
+        var writer = sessionFactory.openSession();
+        writer.beginTransaction();
+        var note = new Note();
+        note.setId(100L);
+        note.setBody("committed");
+        note.setPerson(writer.find(Person.class, 1L));
+        writer.persist(note);
+        writer.flush();
+        writer.findAll(Note.class, List.of(100L));
+        writer.commit();
+        writer.close();
+
+        var reader = sessionFactory.openSession();
+        assertEquals("committed", reader.find(Note.class, 100L).getBody());
+        reader.close();
+    }
+
+    @Test
+    void statelessUpdateEvictsStateCachedBeforeCommit() {
+        var writer = sessionFactory.openStatelessSession();
+        writer.beginTransaction();
+        var person = writer.get(Person.class, 1L);
+        person.setLastName("Beck");
+        writer.update(person);
+
+        var reader = sessionFactory.openSession();
+        assertEquals("Fowler", reader.find(Person.class, 1L).getLastName());
+        reader.close();
+
+        writer.commit();
+        writer.close();
+
+        reader = sessionFactory.openSession();
+        assertEquals("Beck", reader.find(Person.class, 1L).getLastName());
+        reader.close();
+    }
+
+    @Test
+    void stateReadBeforeEvictionIsNotCached() {
+        var metadata = sessionFactory.getMetamodel().getEntityMetadata(Note.class);
+        var region = sessionFactory.getSecondLevelCache().getRegion(metadata);
+        var timestamp = sessionFactory.getSecondLevelCache().currentTimestamp();
+        sessionFactory.getSecondLevelCache().evict(metadata, 1L);
+
+        region.put(1L, new Object[]{1L, "stale", 1L}, timestamp);
+
+        assertNull(region.get(1L));
+        region.put(1L, new Object[]{1L, "fresh", 1L}, sessionFactory.getSecondLevelCache().currentTimestamp());
+        assertEquals("fresh", region.get(1L)[1]);
+    }
+}
@@ -0,0 +1,34 @@
+package bibernate.metamodel;
+
+import bibernate.metamodel.access.PropertyAccessStrategy;
+import demo.entity.Note;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ProjectionMappingTest {
+    private final Metamodel metamodel = new Metamodel(PropertyAccessStrategy.METHOD_HANDLE);
+
+    @Test
+    void primitiveAccessorOfNullableColumnIsRejected() {
+        var exception = assertThrows(IllegalArgumentException.class,
+                () -> metamodel.getProjectionMapping(Note.class, NoteOwner.class));
+
+        assertTrue(exception.getMessage().contains("NoteOwner.person"), exception.getMessage());
+        assertTrue(exception.getMessage().contains("person_id"), exception.getMessage());
+    }
+
+    @Test
+    void primitiveIdIsAccepted() {
+        assertDoesNotThrow(() -> metamodel.getProjectionMapping(Note.class, NoteId.class));
+    }
+
+    interface NoteOwner {
+        long person();
+    }
+
+    record NoteId(long id) {
+    }
+}
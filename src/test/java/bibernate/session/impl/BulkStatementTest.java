@@ -0,0 +1,51 @@
+package bibernate.session.impl;
+
+import bibernate.TestDatabase;
+import bibernate.session.Settings;
+import demo.entity.Note;
+import demo.entity.Person;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class BulkStatementTest {
+    private SimpleSessionFactory sessionFactory;
+
+    @BeforeEach
+    void setUp() {
+        var dataSource = TestDatabase.create("bulk_statement_" + System.nanoTime());
+        sessionFactory = new SimpleSessionFactory(dataSource, Settings.builder().maxInListSize(2).build());
+    }
+
+    @Test
+    void inListLongerThanMaxSizeIsExecutedInChunks() {
+        var session = sessionFactory.openSession();
+        var deleted = session.createDelete(Note.class)
+                .whereIn("id", List.of(1L, 2L, 3L, 4L, 5L))
+                .whereIn("person", List.of(1L, 2L, 4L))
+                .execute();
+        session.close();
+
+        assertEquals(4, deleted);
+        session = sessionFactory.openSession();
+        assertEquals(List.of(5L, 6L, 7L, 8L), session.findAll(Note.class, List.of(1L, 2L, 3L, 4L, 5L, 6L, 7L, 8L))
+                .stream().map(Note::getId).toList());
+        session.close();
+    }
+
+    @Test
+    void projectionRejectsInListLongerThanMaxSize() {
+        var session = sessionFactory.openSession();
+        var query = session.createProjection(Person.class, PersonName.class).whereIn("id", List.of(1L, 2L, 3L));
+
+        assertThrows(IllegalArgumentException.class, query::list);
+        session.close();
+    }
+
+    record PersonName(String firstName, String lastName) {
+    }
+}
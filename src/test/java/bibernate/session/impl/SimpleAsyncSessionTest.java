@@ -0,0 +1,48 @@
+package bibernate.session.impl;
+
+import bibernate.TestDatabase;
+import bibernate.session.AsyncSession;
+import demo.entity.Person;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SimpleAsyncSessionTest {
+    private SimpleSessionFactory sessionFactory;
+    private AsyncSession session;
+
+    @BeforeEach
+    void setUp() {
+        sessionFactory = new SimpleSessionFactory(TestDatabase.create("async_session_" + System.nanoTime()));
+        session = sessionFactory.openAsyncSession();
+    }
+
+    @AfterEach
+    void tearDown() {
+        session.close().toCompletableFuture().join();
+        sessionFactory.close();
+    }
+
+    @Test
+    void lazyCollectionCannotBeInitializedOutsideOfTasks() {
+        var person = session.find(Person.class, 1L).toCompletableFuture().join();
+
+        var exception = assertThrows(IllegalStateException.class, () -> person.getNotes().size());
+        assertTrue(exception.getMessage().contains("withSession"));
+    }
+
+    @Test
+    void lazyCollectionIsInitializedInsideOfTask() {
+        var person = session.withSession(s -> {
+            var p = s.find(Person.class, 1L);
+            p.getNotes().size();
+            return p;
+        }).toCompletableFuture().join();
+
+        assertEquals(3, person.getNotes().size());
+    }
+}
@@ -0,0 +1,75 @@
+package bibernate.session.impl;
+
+import bibernate.TestDatabase;
+import bibernate.session.Settings;
+import demo.entity.Note;
+import demo.entity.Person;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StatefulSessionTest {
+    private SimpleSessionFactory sessionFactory;
+
+    @BeforeEach
+    void setUp() {
+        sessionFactory = new SimpleSessionFactory(TestDatabase.create("stateful_session_" + System.nanoTime()));
+    }
+
+    @Test
+    void transactionIsNotCommittedAfterFailedFlush() {
+        var session = sessionFactory.openSession();
+        session.beginTransaction();
+        var person = new Person();
+        person.setFirstName("Kent");
+        person.setLastName("Beck");
+        session.persist(person);
+        var note = new Note();
+        note.setId(1L); // already exists
+        note.setBody("duplicate");
+        note.setPerson(person);
+        session.persist(note);
+
+        assertThrows(SQLException.class, session::flush);
+        assertThrows(IllegalStateException.class, session::commit);
+        session.close();
+
+        var reader = sessionFactory.openSession();
+        assertTrue(reader.findAll(Person.class, List.of(person.getId())).isEmpty());
+        reader.close();
+    }
+
+    @Test
+    void parallelDirtyCheckRunsOnConfiguredPool() {
+        var workerCount = new AtomicInteger();
+        var pool = new ForkJoinPool(2, p -> {
+            workerCount.incrementAndGet();
+            return new ForkJoinWorkerThread(p) {
+            };
+        }, null, false);
+        var dataSource = TestDatabase.create("dirty_check_pool_" + System.nanoTime());
+        var parallelSessionFactory = new SimpleSessionFactory(dataSource, Settings.builder()
+                .parallelDirtyCheckThreshold(1)
+                .dirtyCheckPool(pool)
+                .build());
+        var session = parallelSessionFactory.openSession();
+        var persons = session.findAll(Person.class, List.of(1L, 2L, 3L));
+        persons.get(1).setLastName("Goetz");
+        session.close();
+
+        session = parallelSessionFactory.openSession();
+        assertEquals("Goetz", session.find(Person.class, 2L).getLastName());
+        session.close();
+        assertTrue(workerCount.get() > 0);
+        pool.shutdown();
+    }
+}
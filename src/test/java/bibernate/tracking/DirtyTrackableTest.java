@@ -0,0 +1,93 @@
+package bibernate.tracking;
+
+import bibernate.TestDatabase;
+import bibernate.annotation.Column;
+import bibernate.annotation.Id;
+import bibernate.annotation.Table;
+import bibernate.session.Settings;
+import bibernate.session.impl.SimpleSessionFactory;
+import demo.entity.Note;
+import demo.entity.Person;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.function.BiConsumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class DirtyTrackableTest {
+
+    @Test
+    void trackedAndSnapshotCheckedEntitiesFlushTheSameChanges() {
+        var snapshotChecked = flushChanges(Person.class, Person::setLastName);
+        var tracked = flushChanges(TrackedPerson.class, TrackedPerson::setLastName);
+
+        assertEquals(snapshotChecked, tracked);
+        assertEquals(new FlushResult(1, List.of("Beck", "Bloch", "Schildt")), tracked);
+    }
+
+    @Test
+    void demoNoteIsTracked() {
+        var sessionFactory = new SimpleSessionFactory(TestDatabase.create("tracked_note_" + System.nanoTime()));
+        var session = sessionFactory.openSession();
+        var note = session.find(Note.class, 1L);
+        note.setBody("Tracked");
+        session.close();
+
+        session = sessionFactory.openSession();
+        assertEquals("Tracked", session.find(Note.class, 1L).getBody());
+        session.close();
+    }
+
+    /**
+     * Changes the last name of the 1st person, sets the same last name to the 2nd one and leaves the 3rd one as is
+     */
+    private <T> FlushResult flushChanges(Class<T> entityType, BiConsumer<T, String> lastNameSetter) {
+        var dataSource = TestDatabase.create("dirty_tracking_" + System.nanoTime());
+        var sessionFactory = new SimpleSessionFactory(dataSource, Settings.builder().statisticsEnabled(true).build());
+        var session = sessionFactory.openSession();
+        var persons = session.findAll(entityType, List.of(1L, 2L, 3L));
+        lastNameSetter.accept(persons.get(0), "Beck");
+        lastNameSetter.accept(persons.get(1), "Bloch");
+        session.flush();
+        session.close();
+        var updateCount = sessionFactory.getStatistics().getEntityUpdateCount();
+
+        session = sessionFactory.openSession();
+        var lastNames = session.findAll(Person.class, List.of(1L, 2L, 3L)).stream()
+                .map(Person::getLastName)
+                .toList();
+        session.close();
+        sessionFactory.close();
+        return new FlushResult(updateCount, lastNames);
+    }
+
+    private record FlushResult(long updateCount, List<String> lastNames) {
+    }
+
+    @Table("persons")
+    public static class TrackedPerson implements DirtyTrackable {
+        private final transient DirtyTracker dirtyTracker = new DirtyTracker(TrackedPerson.class);
+        @Id
+        private Long id;
+        @Column("first_name")
+        private String firstName;
+        @Column("last_name")
+        private String lastName;
+
+        @Override
+        public DirtyTracker getDirtyTracker() {
+            return dirtyTracker;
+        }
+
+        public void setFirstName(String firstName) {
+            this.firstName = firstName;
+            dirtyTracker.markDirty("firstName");
+        }
+
+        public void setLastName(String lastName) {
+            this.lastName = lastName;
+            dirtyTracker.markDirty("lastName");
+        }
+    }
+}